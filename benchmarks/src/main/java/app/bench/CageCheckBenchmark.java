@@ -0,0 +1,89 @@
+package app.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.generator.GeneratedPuzzle;
+import app.puzzle.Operator;
+import app.puzzle.Puzzle;
+
+/**
+ * Checking every cage of a filled in grid against its target, the work the game does after every move.
+ * <p>
+ * MathDokuCage.checkMaths() needs JavaFX cells, so this runs the same evaluation headlessly. The cells of every
+ * cage are looked up in setup, so only copying the numbers out of the grid and {@link Operator#matches} are
+ * timed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CageCheckBenchmark {
+
+    @Param({"3", "4", "5", "6", "7", "8", "9", "10", "11", "12"})
+    private int size;
+
+    // for every puzzle in the corpus, the cells of each cage, its operator and target, and the filled in grid.
+    private int[][][] cageCells;
+    private Operator[][] operators;
+    private int[][] targets;
+    private int[][] solutions;
+    private int[] values;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Corpus corpus = new Corpus(size, Corpus.SIZE, Corpus.SEED, false);
+        cageCells = new int[corpus.size()][][];
+        operators = new Operator[corpus.size()][];
+        targets = new int[corpus.size()][];
+        solutions = new int[corpus.size()][];
+        for (int i = 0; i < corpus.size(); i++) {
+            GeneratedPuzzle generated = corpus.get(i);
+            Puzzle puzzle = generated.getPuzzle();
+            int cageCount = puzzle.getCageCount();
+            cageCells[i] = new int[cageCount][];
+            operators[i] = new Operator[cageCount];
+            targets[i] = new int[cageCount];
+            for (int cage = 0; cage < cageCount; cage++) {
+                cageCells[i][cage] = puzzle.getCageCells(cage);
+                operators[i][cage] = puzzle.getOperator(cage);
+                targets[i][cage] = puzzle.getTarget(cage);
+            }
+            solutions[i] = generated.getSolution();
+        }
+        values = new int[size * size];
+    }
+
+    @Benchmark
+    public int checkCages() {
+        int i = next;
+        next = (next + 1) % solutions.length;
+        int[][] cells = cageCells[i];
+        int[] solution = solutions[i];
+        int met = 0;
+        for (int cage = 0; cage < cells.length; cage++) {
+            int[] members = cells[cage];
+            for (int k = 0; k < members.length; k++) {
+                values[k] = solution[members[k]];
+            }
+            if (operators[i][cage].matches(values, members.length, targets[i][cage])) {
+                met++;
+            }
+        }
+        return met;
+    }
+}
@@ -0,0 +1,89 @@
+package app.bench;
+
+import java.util.Random;
+
+import app.generator.GeneratedPuzzle;
+import app.generator.Generator;
+import app.solver.Solver;
+
+/**
+ * A fixed set of generated puzzles, the same on every run so results can be compared between changes.
+ * <p>
+ * Puzzles the solver needs more than {@link #NODE_LIMIT} guesses for are left out. A few big grids with large sum
+ * cages can take the solver minutes, and one of those would make every run take hours without saying anything
+ * about the rest of the puzzles. The limit counts guesses rather than time, so which puzzles are in a corpus
+ * only depends on the seed and the code, never on the machine or how busy it is. A change to the solver that
+ * makes a left out puzzle easier, or a kept one harder, changes the corpus, which {@link #getSkipped()} shows.
+ */
+public final class Corpus {
+    /**
+     * The seed every benchmark starts from.
+     */
+    public static final long SEED = 20200401L;
+    /**
+     * Puzzles in every corpus, enough that one odd puzzle doesn't decide the result.
+     */
+    public static final int SIZE = 32;
+
+    /**
+     * The most guesses the solver can make on a puzzle in the corpus, about a second on a 12x12 grid.
+     */
+    public static final long NODE_LIMIT = 20000;
+
+    // long enough that the generator is only ever stopped by the node limit.
+    private static final long GENERATE_TIMEOUT_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private final GeneratedPuzzle[] puzzles;
+    private int skipped;
+
+    /**
+     * @param size   The grid dimensions.
+     * @param count  How many puzzles to make.
+     * @param seed   Where the randomness starts.
+     * @param unique Whether every puzzle must have exactly one solution.
+     */
+    public Corpus(int size, int count, long seed, boolean unique) {
+        Generator generator = new Generator(size, new Random(seed * 31 + size));
+        generator.setUniqueSolution(unique);
+        // only guesses decide which puzzles the generator makes, never how long its checks take.
+        generator.setCheckNodeLimit(NODE_LIMIT);
+        generator.setTimeout(GENERATE_TIMEOUT_MILLIS);
+        puzzles = new GeneratedPuzzle[count];
+        for (int i = 0; i < count; i++) {
+            GeneratedPuzzle puzzle;
+            Solver solver;
+            do {
+                puzzle = generator.generate();
+                solver = new Solver(puzzle.getPuzzle());
+                solver.setNodeLimit(NODE_LIMIT);
+                solver.solve();
+                if (solver.hasTimedOut()) {
+                    skipped++;
+                }
+            } while (solver.hasTimedOut());
+            puzzles[i] = puzzle;
+        }
+    }
+
+    /**
+     * @param i Any number, it wraps around the corpus.
+     * @return A puzzle from the corpus.
+     */
+    public GeneratedPuzzle get(int i) {
+        return puzzles[Math.floorMod(i, puzzles.length)];
+    }
+
+    /**
+     * @return How many generated puzzles were left out for needing too many guesses.
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return How many puzzles there are.
+     */
+    public int size() {
+        return puzzles.length;
+    }
+}
@@ -0,0 +1,55 @@
+package app.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.generator.GeneratedPuzzle;
+import app.generator.Generator;
+import app.generator.LatinSquare;
+
+/**
+ * Making new puzzles, and the Latin squares they start from, across grid sizes 3 to 12. The randomness is
+ * seeded, so every run makes the same puzzles in the same order.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    @Param({"3", "4", "5", "6", "7", "8", "9", "10", "11", "12"})
+    private int size;
+
+    private Generator generator;
+    private Random rand;
+
+    @Setup
+    public void setUp() {
+        generator = new Generator(size, new Random(Corpus.SEED));
+        rand = new Random(Corpus.SEED);
+    }
+
+    @Benchmark
+    public GeneratedPuzzle generate() {
+        return generator.generate();
+    }
+
+    @Benchmark
+    public int[] latinSquare() {
+        return LatinSquare.sample(size, rand);
+    }
+}
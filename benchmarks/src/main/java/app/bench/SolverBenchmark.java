@@ -0,0 +1,45 @@
+package app.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.solver.Solver;
+
+/**
+ * Solving puzzles from a fixed seed {@link Corpus}, one puzzle after another, across grid sizes 3 to 12.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({"3", "4", "5", "6", "7", "8", "9", "10", "11", "12"})
+    private int size;
+
+    private Corpus corpus;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        corpus = new Corpus(size, Corpus.SIZE, Corpus.SEED, false);
+    }
+
+    @Benchmark
+    public int[] solve() {
+        return new Solver(corpus.get(next++).getPuzzle()).solve();
+    }
+}
@@ -0,0 +1,48 @@
+package app.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.generator.GeneratedPuzzle;
+import app.generator.Generator;
+
+/**
+ * Making puzzles with only one solution, which is what the game does when it makes a new grid. Only goes up
+ * to 9x9, like {@link UniqueSolverBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UniqueGeneratorBenchmark {
+
+    @Param({"3", "4", "5", "6", "7", "8", "9"})
+    private int size;
+
+    private Generator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new Generator(size, new Random(Corpus.SEED));
+        generator.setUniqueSolution(true);
+    }
+
+    @Benchmark
+    public GeneratedPuzzle generateUnique() {
+        return generator.generate();
+    }
+}
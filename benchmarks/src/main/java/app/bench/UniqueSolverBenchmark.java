@@ -0,0 +1,54 @@
+package app.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.solver.ParallelSolver;
+import app.solver.Solver;
+
+/**
+ * Proving puzzles have only one solution, with the solver and the parallel solver, the check the unique
+ * generator makes over and over.
+ * <p>
+ * Only goes up to 9x9, past that making a corpus of unique puzzles takes longer than the benchmarks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UniqueSolverBenchmark {
+
+    @Param({"3", "4", "5", "6", "7", "8", "9"})
+    private int size;
+
+    private Corpus corpus;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        corpus = new Corpus(size, Corpus.SIZE, Corpus.SEED, true);
+    }
+
+    @Benchmark
+    public int countSolutions() {
+        return new Solver(corpus.get(next++).getPuzzle()).countSolutions(2);
+    }
+
+    @Benchmark
+    public int parallelCountSolutions() {
+        return new ParallelSolver(corpus.get(next++).getPuzzle()).countSolutions(2);
+    }
+}
@@ -0,0 +1,70 @@
+package app.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.puzzle.Puzzle;
+import app.puzzle.PuzzleParseException;
+import app.puzzle.PuzzleParser;
+import app.puzzle.PuzzleValidator;
+import app.puzzle.PuzzleWriter;
+
+/**
+ * Reading saves and checking their cages make a valid puzzle, the work done when a puzzle is loaded or typed in.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    @Param({"3", "4", "5", "6", "7", "8", "9", "10", "11", "12"})
+    private int size;
+
+    private Puzzle[] puzzles;
+    private String[] saves;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        Corpus corpus = new Corpus(size, Corpus.SIZE, Corpus.SEED, false);
+        puzzles = new Puzzle[corpus.size()];
+        saves = new String[corpus.size()];
+        for (int i = 0; i < corpus.size(); i++) {
+            puzzles[i] = corpus.get(i).getPuzzle();
+            StringBuilder save = new StringBuilder();
+            PuzzleWriter.write(puzzles[i], save);
+            saves[i] = save.toString();
+        }
+    }
+
+    @Benchmark
+    public String validate() {
+        return PuzzleValidator.validate(puzzles[nextIndex()]);
+    }
+
+    @Benchmark
+    public Puzzle parse() throws PuzzleParseException {
+        return PuzzleParser.parse(saves[nextIndex()]);
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = (next + 1) % puzzles.length;
+        return i;
+    }
+}
@@ -0,0 +1,284 @@
+package app;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class EditLogTest {
+    private static final int CELLS = 16;
+
+    private final int[] grid = new int[CELLS];
+    private final EditLog.Applier applier = (cell, number) -> grid[cell] = number;
+
+    @Test
+    void undoesAndRedoes() {
+        EditLog log = new EditLog(10);
+        assertFalse(log.canUndo());
+        assertFalse(log.undo(applier));
+
+        set(log, 0, 1);
+        set(log, 0, 2);
+        set(log, 3, 4);
+        assertTrue(log.undo(applier));
+        assertArrayEquals(gridOf(0, 2), grid);
+        assertTrue(log.undo(applier));
+        assertArrayEquals(gridOf(0, 1), grid);
+        assertTrue(log.canRedo());
+        assertTrue(log.redo(applier));
+        assertTrue(log.redo(applier));
+        assertFalse(log.redo(applier));
+        assertArrayEquals(gridOf(0, 2, 3, 4), grid);
+    }
+
+    @Test
+    void forgetsTheRedoHistoryOnANewEdit() {
+        EditLog log = new EditLog(10);
+        set(log, 0, 1);
+        set(log, 1, 1);
+        log.undo(applier);
+        set(log, 2, 1);
+        assertFalse(log.canRedo());
+        log.undo(applier);
+        log.undo(applier);
+        assertFalse(log.canUndo());
+        assertArrayEquals(new int[CELLS], grid);
+    }
+
+    @Test
+    void forgetsTheOldestEditsAtTheLimit() {
+        EditLog log = new EditLog(3);
+        for (int cell = 0; cell < 5; cell++) {
+            set(log, cell, 1);
+        }
+        int undone = 0;
+        while (log.undo(applier)) {
+            undone++;
+        }
+        assertEquals(3, undone);
+        assertArrayEquals(gridOf(0, 1, 1, 1), grid);
+    }
+
+    @Test
+    void undoesAGroupTogether() {
+        EditLog log = new EditLog(10);
+        set(log, 0, 1);
+        log.beginGroup();
+        set(log, 1, 1);
+        log.beginGroup();
+        set(log, 2, 1);
+        log.endGroup();
+        set(log, 3, 1);
+        log.endGroup();
+
+        log.undo(applier);
+        assertArrayEquals(gridOf(0, 1), grid);
+        log.redo(applier);
+        assertArrayEquals(gridOf(0, 1, 1, 1, 2, 1, 3, 1), grid);
+    }
+
+    @Test
+    void forgetsAWholeGroupAtTheLimit() {
+        EditLog log = new EditLog(4);
+        log.beginGroup();
+        set(log, 0, 1);
+        set(log, 1, 1);
+        set(log, 2, 1);
+        log.endGroup();
+        set(log, 3, 1);
+        set(log, 4, 1);
+
+        log.undo(applier);
+        log.undo(applier);
+        assertFalse(log.canUndo());
+        assertArrayEquals(gridOf(0, 1, 1, 1, 2, 1), grid);
+    }
+
+    @Test
+    void forgetsEverythingForAGroupBiggerThanTheLimit() {
+        EditLog log = new EditLog(3);
+        set(log, 0, 1);
+        log.beginGroup();
+        for (int cell = 1; cell < 6; cell++) {
+            set(log, cell, 1);
+        }
+        log.endGroup();
+        assertFalse(log.canUndo());
+        assertFalse(log.canRedo());
+
+        // the log works as normal after the group.
+        set(log, 6, 1);
+        assertTrue(log.undo(applier));
+        assertFalse(log.canUndo());
+    }
+
+    @Test
+    void rejectsALimitBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> new EditLog(0));
+    }
+
+    @Test
+    void behavesLikeAListOfGroups() {
+        Random rand = new Random(4);
+        for (int limit : new int[] {1, 2, 3, 5, 8, 64, 100}) {
+            EditLog log = new EditLog(limit);
+            Model model = new Model(limit);
+            int[] expected = new int[CELLS];
+            Arrays.fill(grid, 0);
+            for (int step = 0; step < 20000; step++) {
+                int action = rand.nextInt(10);
+                if (action < 2) {
+                    assertEquals(model.undo(expected), log.undo(applier));
+                } else if (action < 3) {
+                    assertEquals(model.redo(expected), log.redo(applier));
+                } else if (action < 4) {
+                    int edits = rand.nextInt(limit + 3);
+                    log.beginGroup();
+                    model.beginGroup();
+                    for (int i = 0; i < edits; i++) {
+                        int cell = rand.nextInt(CELLS);
+                        int number = rand.nextInt(10);
+                        log.record(cell, grid[cell], number);
+                        grid[cell] = number;
+                        model.record(cell, expected[cell], number);
+                        expected[cell] = number;
+                    }
+                    log.endGroup();
+                    model.endGroup();
+                } else if (action < 5) {
+                    log.clear();
+                    model.clear();
+                } else {
+                    int cell = rand.nextInt(CELLS);
+                    int number = rand.nextInt(10);
+                    log.record(cell, grid[cell], number);
+                    grid[cell] = number;
+                    model.record(cell, expected[cell], number);
+                    expected[cell] = number;
+                }
+                String at = "limit " + limit + ", step " + step;
+                assertArrayEquals(expected, grid, at);
+                assertEquals(model.canUndo(), log.canUndo(), at);
+                assertEquals(model.canRedo(), log.canRedo(), at);
+            }
+        }
+    }
+
+    private void set(EditLog log, int cell, int number) {
+        log.record(cell, grid[cell], number);
+        grid[cell] = number;
+    }
+
+    /**
+     * @return A grid with the given cells and numbers in pairs, and every other cell empty.
+     */
+    private static int[] gridOf(int... cellsAndNumbers) {
+        int[] grid = new int[CELLS];
+        for (int i = 0; i < cellsAndNumbers.length; i += 2) {
+            grid[cellsAndNumbers[i]] = cellsAndNumbers[i + 1];
+        }
+        return grid;
+    }
+
+    /**
+     * The edit log as it is described, groups of edits in a pair of stacks.
+     */
+    private static class Model {
+        private final int limit;
+        private final Deque<List<int[]>> undo = new ArrayDeque<List<int[]>>();
+        private final Deque<List<int[]>> redo = new ArrayDeque<List<int[]>>();
+        private int edits;
+        private boolean inGroup;
+        private List<int[]> group;
+        private boolean groupTooBig;
+
+        Model(int limit) {
+            this.limit = limit;
+        }
+
+        void beginGroup() {
+            inGroup = true;
+            group = null;
+            groupTooBig = false;
+        }
+
+        void endGroup() {
+            inGroup = false;
+        }
+
+        void record(int cell, int oldNumber, int newNumber) {
+            if (inGroup && groupTooBig) {
+                return;
+            }
+            redo.clear();
+            if (edits == limit) {
+                List<int[]> oldest = undo.removeFirst();
+                edits -= oldest.size();
+                if (inGroup && oldest == group) {
+                    groupTooBig = true;
+                    clear();
+                    return;
+                }
+            }
+            if (!inGroup || group == null) {
+                List<int[]> edit = new ArrayList<int[]>();
+                undo.addLast(edit);
+                if (inGroup) {
+                    group = edit;
+                }
+            }
+            undo.getLast().add(new int[] {cell, oldNumber, newNumber});
+            edits++;
+        }
+
+        boolean undo(int[] grid) {
+            if (undo.isEmpty()) {
+                return false;
+            }
+            List<int[]> last = undo.removeLast();
+            for (int i = last.size() - 1; i >= 0; i--) {
+                grid[last.get(i)[0]] = last.get(i)[1];
+            }
+            edits -= last.size();
+            redo.addLast(last);
+            return true;
+        }
+
+        boolean redo(int[] grid) {
+            if (redo.isEmpty()) {
+                return false;
+            }
+            List<int[]> next = redo.removeLast();
+            for (int[] edit : next) {
+                grid[edit[0]] = edit[2];
+            }
+            edits += next.size();
+            undo.addLast(next);
+            return true;
+        }
+
+        boolean canUndo() {
+            return !undo.isEmpty();
+        }
+
+        boolean canRedo() {
+            return !redo.isEmpty();
+        }
+
+        void clear() {
+            undo.clear();
+            redo.clear();
+            edits = 0;
+        }
+    }
+}
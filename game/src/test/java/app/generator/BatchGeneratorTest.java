@@ -0,0 +1,74 @@
+package app.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import app.puzzle.Puzzle;
+
+class BatchGeneratorTest {
+
+    @Test
+    void handsOverPuzzlesInOrder() throws IOException {
+        for (int count : new int[] {0, 1, 7, 8, 9, 33, 100}) {
+            List<Integer> indexes = new ArrayList<Integer>();
+            Thread caller = Thread.currentThread();
+            BatchGenerator batch = new BatchGenerator(4);
+            batch.setParallelism(2);
+            batch.generate(count, (index, puzzle) -> {
+                assertSame(caller, Thread.currentThread());
+                indexes.add(index);
+            });
+            assertEquals(count, indexes.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, indexes.get(i));
+            }
+        }
+    }
+
+    @Test
+    void makesTheSameBatchOnAnyNumberOfThreads() throws IOException {
+        List<Puzzle> expected = generate(1);
+        for (int parallelism : new int[] {2, 3, 5}) {
+            assertEquals(expected, generate(parallelism));
+        }
+    }
+
+    @Test
+    void stopsWhenTheSinkFails() {
+        BatchGenerator batch = new BatchGenerator(4);
+        batch.setParallelism(2);
+        List<Integer> indexes = new ArrayList<Integer>();
+        IOException e = assertThrows(IOException.class, () -> batch.generate(1000, (index, puzzle) -> {
+            if (index == 10) {
+                throw new IOException("full");
+            }
+            indexes.add(index);
+        }));
+        assertEquals("full", e.getMessage());
+        assertEquals(10, indexes.size());
+    }
+
+    @Test
+    void rejectsParallelismBelowOne() {
+        BatchGenerator batch = new BatchGenerator(4);
+        assertThrows(IllegalArgumentException.class, () -> batch.setParallelism(0));
+        assertThrows(IllegalArgumentException.class, () -> batch.setParallelism(-1));
+    }
+
+    private static List<Puzzle> generate(int parallelism) throws IOException {
+        BatchGenerator batch = new BatchGenerator(5);
+        batch.setSeed(9);
+        batch.setUniqueSolution(true);
+        batch.setParallelism(parallelism);
+        List<Puzzle> puzzles = new ArrayList<Puzzle>();
+        batch.generate(150, (index, puzzle) -> puzzles.add(puzzle.getPuzzle()));
+        return puzzles;
+    }
+}
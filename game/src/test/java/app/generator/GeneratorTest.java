@@ -0,0 +1,75 @@
+package app.generator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import app.puzzle.Operator;
+import app.puzzle.Puzzle;
+import app.puzzle.PuzzleValidator;
+import app.solver.Solver;
+
+class GeneratorTest {
+
+    @Test
+    void makesValidPuzzlesItsSolutionSolves() {
+        Random rand = new Random(7);
+        for (int size = 1; size <= 12; size++) {
+            Generator generator = new Generator(size, rand);
+            for (int i = 0; i < 5; i++) {
+                GeneratedPuzzle generated = generator.generate();
+                Puzzle puzzle = generated.getPuzzle();
+                int[] solution = generated.getSolution();
+                assertEquals(size, puzzle.getSize());
+                assertNull(PuzzleValidator.validate(puzzle));
+                assertTrue(LatinSquareTest.isLatinSquare(solution, size));
+
+                for (int cage = 0; cage < puzzle.getCageCount(); cage++) {
+                    int[] cells = puzzle.getCageCells(cage);
+                    int[] values = new int[cells.length];
+                    for (int k = 0; k < cells.length; k++) {
+                        values[k] = solution[cells[k]];
+                    }
+                    Operator operator = puzzle.getOperator(cage);
+                    assertTrue(operator.matches(values, values.length, puzzle.getTarget(cage)));
+                    if (operator == Operator.SUBTRACT || operator == Operator.DIVIDE) {
+                        assertEquals(2, cells.length);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void makesPuzzlesWithOneSolution() {
+        for (int size = 3; size <= 7; size++) {
+            Generator generator = new Generator(size, new Random(size));
+            generator.setUniqueSolution(true);
+            for (int i = 0; i < 5; i++) {
+                GeneratedPuzzle generated = generator.generate();
+                assertEquals(1, new Solver(generated.getPuzzle()).countSolutions(2));
+                assertArrayEquals(generated.getSolution(), new Solver(generated.getPuzzle()).solve());
+            }
+        }
+    }
+
+    @Test
+    void makesTheSamePuzzleFromTheSameSeed() {
+        GeneratedPuzzle first = new Generator(9, new Random(8)).generate();
+        GeneratedPuzzle second = new Generator(9, new Random(8)).generate();
+        assertEquals(first.getPuzzle(), second.getPuzzle());
+        assertArrayEquals(first.getSolution(), second.getSolution());
+    }
+
+    @Test
+    void rejectsGridsTheSolverCantHold() {
+        assertThrows(IllegalArgumentException.class, () -> new Generator(0, new Random()));
+        assertThrows(IllegalArgumentException.class, () -> new Generator(32, new Random()));
+    }
+}
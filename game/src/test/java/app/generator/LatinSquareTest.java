@@ -0,0 +1,55 @@
+package app.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class LatinSquareTest {
+
+    @Test
+    void samplesLatinSquares() {
+        Random rand = new Random(5);
+        for (int size = 1; size <= 31; size++) {
+            for (int steps : new int[] {0, size * size * size}) {
+                assertTrue(isLatinSquare(LatinSquare.sample(size, rand, steps), size), "size " + size);
+            }
+        }
+    }
+
+    @Test
+    void reachesEverySquare() {
+        // there are 576 4x4 squares, but only 432 of them come from the cyclic group.
+        Random rand = new Random(6);
+        Set<String> seen = new HashSet<String>();
+        for (int i = 0; i < 20000; i++) {
+            seen.add(Arrays.toString(LatinSquare.sample(4, rand)));
+        }
+        assertEquals(576, seen.size());
+    }
+
+    static boolean isLatinSquare(int[] square, int size) {
+        if (square.length != size * size) {
+            return false;
+        }
+        for (int line = 0; line < size; line++) {
+            boolean[] inRow = new boolean[size + 1];
+            boolean[] inColumn = new boolean[size + 1];
+            for (int i = 0; i < size; i++) {
+                int row = square[line * size + i];
+                int column = square[i * size + line];
+                if (row < 1 || row > size || column < 1 || column > size || inRow[row] || inColumn[column]) {
+                    return false;
+                }
+                inRow[row] = true;
+                inColumn[column] = true;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,136 @@
+package app.puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import app.generator.Generator;
+
+class PuzzleCodecTest {
+
+    @Test
+    void roundTripsThroughAStream() throws IOException {
+        List<Puzzle> puzzles = puzzles();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PuzzleCodec.writeHeader(out);
+        for (Puzzle puzzle : puzzles) {
+            PuzzleCodec.write(puzzle, out);
+        }
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        PuzzleCodec.readHeader(in);
+        for (Puzzle puzzle : puzzles) {
+            assertEquals(puzzle, PuzzleCodec.read(in));
+        }
+        assertNull(PuzzleCodec.read(in));
+    }
+
+    @Test
+    void roundTripsThroughABuffer() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Puzzle> puzzles = puzzles();
+        for (Puzzle puzzle : puzzles) {
+            int before = out.size();
+            int written = PuzzleCodec.write(puzzle, out);
+            assertEquals(out.size() - before, written);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        for (Puzzle puzzle : puzzles) {
+            assertEquals(puzzle, PuzzleCodec.read(buffer));
+        }
+        assertEquals(0, buffer.remaining());
+
+        for (Puzzle puzzle : puzzles) {
+            assertEquals(puzzle, PuzzleCodec.decode(ByteBuffer.wrap(PuzzleCodec.encode(puzzle))));
+        }
+    }
+
+    @Test
+    void keepsCellsWithoutACage() throws IOException {
+        Puzzle.Builder builder = new Puzzle.Builder(3);
+        builder.addCage(Operator.ADD, 3, 0, 1);
+        Puzzle puzzle = builder.build();
+        Puzzle decoded = PuzzleCodec.decode(ByteBuffer.wrap(PuzzleCodec.encode(puzzle)));
+        assertEquals(-1, decoded.getCage(2));
+        assertEquals(puzzle, decoded);
+    }
+
+    @Test
+    void rejectsTheWrongHeader() {
+        byte[] header = {'N', 'O', 'P', 'E', 1};
+        IOException e = assertThrows(IOException.class,
+                () -> PuzzleCodec.readHeader(new ByteArrayInputStream(header)));
+        assertEquals("Not a puzzle file", e.getMessage());
+        assertThrows(EOFException.class, () -> PuzzleCodec.readHeader(new ByteArrayInputStream(new byte[2])));
+    }
+
+    @Test
+    void rejectsANegativeLength() {
+        // five bytes of varint that reach the sign bit.
+        byte[] record = {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f};
+        IOException e = assertThrows(IOException.class,
+                () -> PuzzleCodec.read(new ByteArrayInputStream(record)));
+        assertEquals("Corrupt puzzle record length", e.getMessage());
+        assertThrows(IOException.class, () -> PuzzleCodec.read(ByteBuffer.wrap(record)));
+    }
+
+    @Test
+    void rejectsARecordCutShort() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PuzzleCodec.write(puzzles().get(0), out);
+        byte[] cut = Arrays.copyOf(out.toByteArray(), out.size() - 1);
+        assertThrows(EOFException.class, () -> PuzzleCodec.read(new ByteArrayInputStream(cut)));
+        assertThrows(EOFException.class, () -> PuzzleCodec.read(ByteBuffer.wrap(cut)));
+
+        byte[] body = PuzzleCodec.encode(puzzles().get(0));
+        assertThrows(EOFException.class,
+                () -> PuzzleCodec.decode(ByteBuffer.wrap(body, 0, body.length - 1)));
+    }
+
+    @Test
+    void rejectsACorruptRecord() {
+        Puzzle.Builder builder = new Puzzle.Builder(2);
+        builder.addCage(Operator.ADD, 3, 0, 1);
+        builder.addCage(Operator.SUBTRACT, 1, 2, 3);
+        byte[] body = PuzzleCodec.encode(builder.build());
+
+        // size, cage count, four cells, then the operators.
+        byte[] badOperator = body.clone();
+        badOperator[6] = 9;
+        assertThrows(IOException.class, () -> PuzzleCodec.decode(ByteBuffer.wrap(badOperator)));
+
+        byte[] badCage = body.clone();
+        badCage[2] = 7;
+        assertThrows(IOException.class, () -> PuzzleCodec.decode(ByteBuffer.wrap(badCage)));
+
+        byte[] tooManyCages = body.clone();
+        tooManyCages[1] = 5;
+        assertThrows(IOException.class, () -> PuzzleCodec.decode(ByteBuffer.wrap(tooManyCages)));
+    }
+
+    /**
+     * @return Generated puzzles of every size up to 9, and the biggest size.
+     */
+    static List<Puzzle> puzzles() {
+        List<Puzzle> puzzles = new ArrayList<Puzzle>();
+        Random rand = new Random(3);
+        for (int size = 1; size <= 9; size++) {
+            puzzles.add(new Generator(size, rand).generate().getPuzzle());
+        }
+        puzzles.add(new Generator(31, rand).generate().getPuzzle());
+        return puzzles;
+    }
+}
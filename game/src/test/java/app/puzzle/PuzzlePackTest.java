@@ -0,0 +1,88 @@
+package app.puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PuzzlePackTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTrips() throws IOException {
+        List<Puzzle> puzzles = PuzzleCodecTest.puzzles();
+        Path path = dir.resolve("puzzles.pack");
+        try (PuzzlePackWriter writer = new PuzzlePackWriter(Files.newOutputStream(path))) {
+            for (int i = 0; i < puzzles.size(); i++) {
+                assertEquals(i, writer.add(puzzles.get(i)));
+            }
+            assertEquals(puzzles.size(), writer.size());
+        }
+
+        assertTrue(PuzzlePack.isPack(path));
+        PuzzlePack pack = PuzzlePack.open(path);
+        assertEquals(puzzles.size(), pack.size());
+        // out of order, as a pack is read by index.
+        for (int i = puzzles.size() - 1; i >= 0; i--) {
+            assertEquals(puzzles.get(i), pack.get(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> pack.get(puzzles.size()));
+        assertThrows(IndexOutOfBoundsException.class, () -> pack.get(-1));
+    }
+
+    @Test
+    void opensAnEmptyPack() throws IOException {
+        Path path = dir.resolve("empty.pack");
+        new PuzzlePackWriter(Files.newOutputStream(path)).close();
+        assertEquals(0, PuzzlePack.open(path).size());
+    }
+
+    @Test
+    void rejectsAnAbortedPack() throws IOException {
+        Path path = dir.resolve("aborted.pack");
+        PuzzlePackWriter writer = new PuzzlePackWriter(Files.newOutputStream(path));
+        for (Puzzle puzzle : PuzzleCodecTest.puzzles()) {
+            writer.add(puzzle);
+        }
+        writer.abort();
+
+        assertTrue(PuzzlePack.isPack(path));
+        IOException e = assertThrows(IOException.class, () -> PuzzlePack.open(path));
+        assertEquals("Puzzle pack index is missing or corrupt", e.getMessage());
+    }
+
+    @Test
+    void rejectsATruncatedPack() throws IOException {
+        Path path = dir.resolve("truncated.pack");
+        try (PuzzlePackWriter writer = new PuzzlePackWriter(Files.newOutputStream(path))) {
+            for (Puzzle puzzle : PuzzleCodecTest.puzzles()) {
+                writer.add(puzzle);
+            }
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> PuzzlePack.open(path));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path path = dir.resolve("puzzle.txt");
+        Files.writeString(path, "3+ 1,2\n3+ 3,4\n");
+        assertFalse(PuzzlePack.isPack(path));
+        IOException e = assertThrows(IOException.class, () -> PuzzlePack.open(path));
+        assertEquals("Not a puzzle pack", e.getMessage());
+
+        Files.write(path, new byte[2]);
+        assertFalse(PuzzlePack.isPack(path));
+    }
+}
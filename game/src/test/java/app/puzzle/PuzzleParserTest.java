@@ -0,0 +1,86 @@
+package app.puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PuzzleParserTest {
+
+    @Test
+    void readsASave() throws IOException {
+        Puzzle puzzle = PuzzleParser.parse("3+ 1,2\n2÷ 3, 4\n");
+        Puzzle.Builder builder = new Puzzle.Builder(2);
+        builder.addCage(Operator.ADD, 3, 0, 1);
+        builder.addCage(Operator.DIVIDE, 2, 2, 3);
+        assertEquals(builder.build(), puzzle);
+    }
+
+    @Test
+    void readsSingleCagesAndEveryLineEnding() throws IOException {
+        Puzzle puzzle = PuzzleParser.parse("\r\n1 1\r\n1-  2,3\r6x 4\n");
+        assertEquals(2, puzzle.getSize());
+        assertEquals(3, puzzle.getCageCount());
+        assertEquals(Operator.NONE, puzzle.getOperator(0));
+        assertEquals(Operator.SUBTRACT, puzzle.getOperator(1));
+        assertEquals(Operator.MULTIPLY, puzzle.getOperator(2));
+        assertEquals(6, puzzle.getTarget(2));
+    }
+
+    @Test
+    void readsWhatTheWriterWrites() throws IOException {
+        for (Puzzle puzzle : PuzzleCodecTest.puzzles()) {
+            StringBuilder save = new StringBuilder();
+            PuzzleWriter.write(puzzle, save);
+            assertEquals(puzzle, PuzzleParser.parse(save));
+        }
+    }
+
+    @Test
+    void readsManyPuzzles() throws IOException {
+        List<Puzzle> puzzles = PuzzleCodecTest.puzzles();
+        StringBuilder saves = new StringBuilder();
+        for (Puzzle puzzle : puzzles) {
+            PuzzleWriter.write(puzzle, saves);
+            saves.append('\n');
+        }
+
+        PuzzleParser fromReader = new PuzzleParser(new StringReader(saves.toString()));
+        PuzzleParser fromBytes = new PuzzleParser(ByteBuffer.wrap(saves.toString().getBytes(StandardCharsets.UTF_8)));
+        for (Puzzle puzzle : puzzles) {
+            assertEquals(puzzle, fromReader.next());
+            assertEquals(puzzle, fromBytes.next());
+        }
+        assertNull(fromReader.next());
+        assertNull(fromBytes.next());
+    }
+
+    @Test
+    void pointsAtTheProblem() {
+        assertError("3+ 1,2\n2c 3,4\n", 2, 2, "unknown operator 'c'");
+        assertError("3+ 1,2\n3+ 2,3\n", 2, 4, "cell 2 is already in a cage");
+        assertError("3+1,2\n", 1, 3, "expected a space before the cells");
+        assertError("3+ 1;2\n", 1, 5, "expected a comma or the end of the line");
+        assertError("+ 1,2\n", 1, 1, "expected a target number");
+        assertError("3+ 1,\n", 1, 6, "expected a cell number");
+        assertError("3+ 1,2\n4+ 3\n", 2, 4, "the highest cell, 3, doesn't make a square grid");
+        assertError("99999999999+ 1\n", 1, 1, "number too big");
+        assertError("3+ 1,2\n3+ 3,4\n\n1 1\n", 4, 1, "expected only one puzzle");
+        assertError("\n \n", 3, 1, "expected a cage");
+    }
+
+    private static void assertError(String save, int line, int column, String message) {
+        PuzzleParseException e = assertThrows(PuzzleParseException.class, () -> PuzzleParser.parse(save));
+        assertEquals(message, e.getMessage().substring(e.getMessage().indexOf(": ") + 2), save);
+        assertEquals(line, e.getLine(), save);
+        assertEquals(column, e.getColumn(), save);
+        assertEquals("Line " + line + ", column " + column + ": " + message, e.getMessage());
+    }
+}
@@ -0,0 +1,79 @@
+package app.puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class PuzzleValidatorTest {
+
+    @Test
+    void acceptsGeneratedPuzzles() {
+        for (Puzzle puzzle : PuzzleCodecTest.puzzles()) {
+            assertNull(PuzzleValidator.validate(puzzle));
+            assertTrue(PuzzleValidator.isValid(puzzle));
+        }
+    }
+
+    @Test
+    void rejectsACellWithoutACage() {
+        Puzzle.Builder builder = new Puzzle.Builder(2);
+        builder.addCage(Operator.ADD, 3, 0, 1);
+        builder.addCage(Operator.NONE, 1, 2);
+        assertEquals("cell 4 isn't in a cage", PuzzleValidator.validate(builder.build()));
+    }
+
+    @Test
+    void rejectsACageInPieces() {
+        Puzzle.Builder builder = new Puzzle.Builder(2);
+        builder.addCage(Operator.ADD, 3, 0, 3);
+        builder.addCage(Operator.ADD, 3, 1, 2);
+        assertEquals("the cage with cell 2 isn't joined up", PuzzleValidator.validate(builder.build()));
+    }
+
+    @Test
+    void rejectsTargetsOutOfReach() {
+        assertEquals("the cage with cell 1 can't reach 10+", validate(3, Operator.ADD, 10));
+        assertEquals("the cage with cell 1 can't reach 2+", validate(3, Operator.ADD, 2));
+        assertEquals("the cage with cell 1 can't reach 3-", validate(3, Operator.SUBTRACT, 3));
+        assertEquals("the cage with cell 1 can't reach 1÷", validate(3, Operator.DIVIDE, 1));
+        assertEquals("the cage with cell 1 can't reach 4÷", validate(3, Operator.DIVIDE, 4));
+        assertNull(validate(3, Operator.DIVIDE, 3));
+        assertNull(validate(3, Operator.SUBTRACT, 2));
+
+        // two cells in one line can't both be 5 or both be 1.
+        assertFalse(PuzzleValidator.isValid(withPair(5, Operator.MULTIPLY, 25)));
+        assertFalse(PuzzleValidator.isValid(withPair(5, Operator.MULTIPLY, 1)));
+        assertFalse(PuzzleValidator.isValid(withPair(5, Operator.MULTIPLY, 7)));
+        for (int target : new int[] {4, 12, 5, 20}) {
+            assertTrue(PuzzleValidator.isValid(withPair(5, Operator.MULTIPLY, target)), target + "x");
+        }
+    }
+
+    @Test
+    void rejectsGridsTheSolverCantHold() {
+        Puzzle.Builder builder = new Puzzle.Builder(32);
+        for (int cell = 0; cell < 32 * 32; cell++) {
+            builder.addCage(Operator.NONE, 1, cell);
+        }
+        assertEquals("grid dimensions must be between 1 and 31, not 32", PuzzleValidator.validate(builder.build()));
+    }
+
+    private static String validate(int size, Operator operator, int target) {
+        return PuzzleValidator.validate(withPair(size, operator, target));
+    }
+
+    /**
+     * @return A puzzle with a two cell cage in its top left corner, and single cages everywhere else.
+     */
+    private static Puzzle withPair(int size, Operator operator, int target) {
+        Puzzle.Builder builder = new Puzzle.Builder(size);
+        builder.addCage(operator, target, 0, 1);
+        for (int cell = 2; cell < size * size; cell++) {
+            builder.addCage(Operator.NONE, 1, cell);
+        }
+        return builder.build();
+    }
+}
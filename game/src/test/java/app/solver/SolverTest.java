@@ -0,0 +1,228 @@
+package app.solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import app.generator.Generator;
+import app.puzzle.Operator;
+import app.puzzle.Puzzle;
+
+class SolverTest {
+    // every Latin square of every size asked for so far, by size.
+    private static final List<List<int[]>> SQUARES = new ArrayList<List<int[]>>();
+
+    @Test
+    void countsEveryLatinSquareOfAnEmptyGrid() {
+        assertEquals(12, new Solver(new Puzzle.Builder(3).build()).countSolutions(1000));
+        assertEquals(576, new Solver(new Puzzle.Builder(4).build()).countSolutions(1000));
+    }
+
+    @Test
+    void stopsCountingAtTheLimit() {
+        assertEquals(2, new Solver(new Puzzle.Builder(4).build()).countSolutions(2));
+    }
+
+    @Test
+    void agreesWithBruteForce() {
+        Random rand = new Random(1);
+        for (int size = 2; size <= 4; size++) {
+            List<int[]> squares = latinSquares(size);
+            for (int i = 0; i < 100; i++) {
+                Puzzle puzzle = randomPuzzle(size, rand);
+                int expected = 0;
+                for (int[] square : squares) {
+                    if (satisfies(puzzle, square)) {
+                        expected++;
+                    }
+                }
+
+                Solver solver = new Solver(puzzle);
+                assertEquals(expected, solver.countSolutions(1000), "solutions to puzzle " + i + " of " + size);
+                int[] solution = new Solver(puzzle).solve();
+                assertNotNull(solution);
+                assertTrue(isLatinSquare(solution, size) && satisfies(puzzle, solution));
+            }
+        }
+    }
+
+    @Test
+    void findsNothingForAnUnsolvablePuzzle() {
+        // 2+2 would need the same number twice in the top row.
+        Puzzle.Builder builder = new Puzzle.Builder(2);
+        builder.addCage(Operator.ADD, 4, 0, 1);
+        builder.addCage(Operator.ADD, 3, 2, 3);
+        Puzzle puzzle = builder.build();
+        assertNull(new Solver(puzzle).solve());
+        assertEquals(0, new Solver(puzzle).countSolutions(10));
+        assertTrue(new Solver(puzzle).findSolutions(10).isEmpty());
+    }
+
+    @Test
+    void findsTheSolutionOfGeneratedPuzzles() {
+        for (int size = 3; size <= 7; size++) {
+            Generator generator = new Generator(size, new Random(size));
+            generator.setUniqueSolution(true);
+            for (int i = 0; i < 10; i++) {
+                Puzzle puzzle = generator.generate().getPuzzle();
+                List<int[]> solutions = new Solver(puzzle).findSolutions(2);
+                assertEquals(1, solutions.size());
+                assertTrue(isLatinSquare(solutions.get(0), size) && satisfies(puzzle, solutions.get(0)));
+            }
+        }
+    }
+
+    @Test
+    void parallelSolverCountsTheSame() {
+        Random rand = new Random(2);
+        for (int i = 0; i < 50; i++) {
+            Puzzle puzzle = randomPuzzle(4, rand);
+            ParallelSolver parallel = new ParallelSolver(puzzle);
+            parallel.setParallelism(3);
+            assertEquals(new Solver(puzzle).countSolutions(1000), parallel.countSolutions(1000));
+        }
+    }
+
+    @Test
+    void givesUpAtTheNodeLimit() {
+        Solver solver = new Solver(new Puzzle.Builder(6).build());
+        solver.setNodeLimit(10);
+        solver.countSolutions(Integer.MAX_VALUE);
+        assertTrue(solver.hasTimedOut());
+
+        solver = new Solver(new Puzzle.Builder(3).build());
+        solver.setNodeLimit(1000);
+        assertEquals(12, solver.countSolutions(Integer.MAX_VALUE));
+        assertFalse(solver.hasTimedOut());
+    }
+
+    @Test
+    void rejectsBadSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new Solver(new Puzzle.Builder(32).build()));
+        ParallelSolver parallel = new ParallelSolver(new Puzzle.Builder(3).build());
+        assertThrows(IllegalArgumentException.class, () -> parallel.setParallelism(0));
+    }
+
+    /**
+     * Cuts one of the Latin squares into random cages of up to four cells, with any operator whose target the
+     * square reaches.
+     */
+    private static Puzzle randomPuzzle(int size, Random rand) {
+        int[] square = latinSquares(size).get(rand.nextInt(latinSquares(size).size()));
+        int[] cageOf = new int[size * size];
+        Arrays.fill(cageOf, -1);
+        Puzzle.Builder builder = new Puzzle.Builder(size);
+        for (int start = 0; start < cageOf.length; start++) {
+            if (cageOf[start] >= 0) {
+                continue;
+            }
+            List<Integer> cells = new ArrayList<Integer>();
+            cells.add(start);
+            cageOf[start] = 0;
+            int wanted = 1 + rand.nextInt(4);
+            while (cells.size() < wanted) {
+                int from = cells.get(rand.nextInt(cells.size()));
+                int next = rand.nextBoolean() ? from + 1 : from + size;
+                if ((next == from + 1 && next % size == 0) || next >= cageOf.length || cageOf[next] >= 0) {
+                    break;
+                }
+                cells.add(next);
+                cageOf[next] = 0;
+            }
+
+            int[] cageCells = cells.stream().mapToInt(Integer::intValue).toArray();
+            int[] values = new int[cageCells.length];
+            for (int k = 0; k < values.length; k++) {
+                values[k] = square[cageCells[k]];
+            }
+            Operator operator = Operator.NONE;
+            if (cageCells.length > 1) {
+                Operator[] options = {Operator.ADD, Operator.MULTIPLY, Operator.SUBTRACT, Operator.DIVIDE};
+                do {
+                    operator = options[rand.nextInt(options.length)];
+                } while (operator.apply(values, values.length) <= 0);
+            }
+            builder.addCage(operator, operator.apply(values, values.length), cageCells);
+        }
+        return builder.build();
+    }
+
+    private static boolean satisfies(Puzzle puzzle, int[] square) {
+        for (int cage = 0; cage < puzzle.getCageCount(); cage++) {
+            int[] cells = puzzle.getCageCells(cage);
+            int[] values = new int[cells.length];
+            for (int k = 0; k < cells.length; k++) {
+                values[k] = square[cells[k]];
+            }
+            if (!puzzle.getOperator(cage).matches(values, values.length, puzzle.getTarget(cage))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLatinSquare(int[] square, int size) {
+        for (int line = 0; line < size; line++) {
+            boolean[] inRow = new boolean[size + 1];
+            boolean[] inColumn = new boolean[size + 1];
+            for (int i = 0; i < size; i++) {
+                int row = square[line * size + i];
+                int column = square[i * size + line];
+                if (row < 1 || row > size || column < 1 || column > size || inRow[row] || inColumn[column]) {
+                    return false;
+                }
+                inRow[row] = true;
+                inColumn[column] = true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Every Latin square of a size, row by row.
+     */
+    private static List<int[]> latinSquares(int size) {
+        while (SQUARES.size() <= size) {
+            SQUARES.add(null);
+        }
+        if (SQUARES.get(size) == null) {
+            List<int[]> squares = new ArrayList<int[]>();
+            fill(new int[size * size], 0, size, squares);
+            SQUARES.set(size, squares);
+        }
+        return SQUARES.get(size);
+    }
+
+    private static void fill(int[] square, int cell, int size, List<int[]> squares) {
+        if (cell == square.length) {
+            squares.add(square.clone());
+            return;
+        }
+        int x = cell % size;
+        int y = cell / size;
+        for (int number = 1; number <= size; number++) {
+            boolean used = false;
+            for (int i = 0; i < x && !used; i++) {
+                used = square[y * size + i] == number;
+            }
+            for (int i = 0; i < y && !used; i++) {
+                used = square[i * size + x] == number;
+            }
+            if (!used) {
+                square[cell] = number;
+                fill(square, cell + 1, size, squares);
+            }
+        }
+        square[cell] = 0;
+    }
+}
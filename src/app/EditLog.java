@@ -0,0 +1,207 @@
+package app;
+
+import java.util.Arrays;
+
+/**
+ * The history of numbers entered into the grid, for undo and redo.
+ * <p>
+ * Every edit is stored as three ints, the cell's index, the number it had and the number it was given, in arrays
+ * used as a ring buffer. The arrays grow as needed up to the limit, after which the oldest edits are forgotten,
+ * so a long game never holds more than the limit and recording an edit doesn't allocate anything. Edits made
+ * between {@link #beginGroup()} and {@link #endGroup()} are undone and redone together, like clearing or solving
+ * the grid. A group with more edits than the limit can't be undone, so it is forgotten along with everything
+ * before it.
+ * <p>
+ * Edits up to the cursor can be undone and edits after it redone, recording a new edit forgets the ones that
+ * could be redone.
+ */
+final class EditLog {
+
+    /**
+     * Puts a number back into a cell while undoing or redoing.
+     */
+    interface Applier {
+        /**
+         * @param cell   The index of the cell, counting row by row from 0.
+         * @param number The number the cell should show, or EMPTY.
+         */
+        void apply(int cell, int number);
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+    // set on the cell of an edit that is undone along with the one before it.
+    private static final int JOINED = 1 << 31;
+
+    private final int limit;
+    private int[] cells;
+    private int[] oldNumbers;
+    private int[] newNumbers;
+    // where the oldest edit is, the buffer's length is always a power of two.
+    private int start;
+    // how many edits can be undone, and how many are held including the ones that can be redone.
+    private int cursor;
+    private int end;
+    private int groupDepth;
+    private boolean groupStarted;
+    // where the open group's first edit is, and if the group has more edits than the limit.
+    private int groupStart;
+    private boolean groupTooBig;
+
+    /**
+     * @param limit The most edits to remember.
+     * @throws IllegalArgumentException If the limit isn't positive.
+     */
+    EditLog(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("The undo limit must be at least 1: " + limit);
+        }
+        this.limit = limit;
+        int capacity = Integer.highestOneBit(Math.min(limit, INITIAL_CAPACITY) - 1) << 1;
+        cells = new int[Math.max(capacity, 1)];
+        oldNumbers = new int[cells.length];
+        newNumbers = new int[cells.length];
+    }
+
+    /**
+     * Starts a group of edits that are undone and redone together. Groups can be nested, only the outermost one
+     * counts.
+     */
+    void beginGroup() {
+        if (groupDepth++ == 0) {
+            groupStarted = false;
+            groupTooBig = false;
+        }
+    }
+
+    /**
+     * Ends the group started by the matching call to beginGroup.
+     */
+    void endGroup() {
+        if (groupDepth > 0) {
+            groupDepth--;
+        }
+    }
+
+    /**
+     * Adds an edit, forgetting any edits that could be redone and, once the limit is reached, the oldest edits.
+     *
+     * @param cell      The index of the cell, counting row by row from 0.
+     * @param oldNumber The number the cell had.
+     * @param newNumber The number the cell was given.
+     */
+    void record(int cell, int oldNumber, int newNumber) {
+        if (groupDepth > 0 && groupTooBig) {
+            return;
+        }
+        boolean joined = groupDepth > 0 && groupStarted;
+        if (groupDepth > 0 && !groupStarted) {
+            groupStarted = true;
+            groupStart = cursor;
+        }
+
+        if (cursor == limit) {
+            // forget the oldest edit and the rest of its group.
+            do {
+                start = (start + 1) & (cells.length - 1);
+                cursor--;
+                groupStart--;
+            } while (cursor > 0 && (cells[position(0)] & JOINED) != 0);
+            if (joined && groupStart < 0) {
+                // the open group itself had to be cut short.
+                groupTooBig = true;
+                clear();
+                return;
+            }
+        } else if (cursor == cells.length) {
+            grow();
+        }
+
+        int position = position(cursor);
+        cells[position] = joined ? cell | JOINED : cell;
+        oldNumbers[position] = oldNumber;
+        newNumbers[position] = newNumber;
+        cursor++;
+        end = cursor;
+    }
+
+    /**
+     * Undoes the last edit, or the whole of the last group.
+     *
+     * @param applier Puts the old numbers back.
+     * @return False if there was nothing to undo.
+     */
+    boolean undo(Applier applier) {
+        if (cursor == 0) {
+            return false;
+        }
+        int position;
+        do {
+            cursor--;
+            position = position(cursor);
+            applier.apply(cells[position] & ~JOINED, oldNumbers[position]);
+        } while (cursor > 0 && (cells[position] & JOINED) != 0);
+        return true;
+    }
+
+    /**
+     * Redoes the last undone edit, or the whole of the last undone group.
+     *
+     * @param applier Puts the new numbers back.
+     * @return False if there was nothing to redo.
+     */
+    boolean redo(Applier applier) {
+        if (cursor == end) {
+            return false;
+        }
+        do {
+            int position = position(cursor);
+            applier.apply(cells[position] & ~JOINED, newNumbers[position]);
+            cursor++;
+        } while (cursor < end && (cells[position(cursor)] & JOINED) != 0);
+        return true;
+    }
+
+    /**
+     * @return If there is an edit to undo.
+     */
+    boolean canUndo() {
+        return cursor > 0;
+    }
+
+    /**
+     * @return If there is an edit to redo.
+     */
+    boolean canRedo() {
+        return cursor < end;
+    }
+
+    /**
+     * Forgets every edit, keeping the arrays for the next game.
+     */
+    void clear() {
+        start = 0;
+        cursor = 0;
+        end = 0;
+    }
+
+    private int position(int edit) {
+        return (start + edit) & (cells.length - 1);
+    }
+
+    /**
+     * Doubles the arrays, moving the oldest edit to the front.
+     */
+    private void grow() {
+        int length = cells.length;
+        cells = unwrap(cells, length * 2);
+        oldNumbers = unwrap(oldNumbers, length * 2);
+        newNumbers = unwrap(newNumbers, length * 2);
+        start = 0;
+    }
+
+    private int[] unwrap(int[] array, int capacity) {
+        int[] grown = Arrays.copyOfRange(array, start, start + capacity);
+        System.arraycopy(array, 0, grown, array.length - start, start);
+        return grown;
+    }
+}
@@ -2,21 +2,36 @@ package app;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Optional;
-import java.util.Set;
-
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import app.puzzle.Puzzle;
+import app.puzzle.PuzzlePack;
+import app.puzzle.PuzzleParseException;
+import app.puzzle.PuzzleParser;
+import app.puzzle.PuzzleValidator;
+
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.BooleanBinding;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.event.EventTarget;
+import javafx.geometry.HPos;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.stage.FileChooser;
@@ -27,6 +42,7 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.*;
 import javafx.scene.text.Text;
+import javafx.util.Duration;
 
 /**
  * Handles creating the GUI and running the game of MathDoku, extends
@@ -39,8 +55,12 @@ import javafx.scene.text.Text;
 public class MathDoku extends Application {
     // use mathDukoController to store everything like prevStacks, dimensions etc
     private MathDokuModel mathDokuModel = new MathDokuModel(this);
-    private Button undoButton;
-    private Button redoButton;
+    // kept between games, so they can be reused or taken off the model.
+    private MathDokuBoard board;
+    private ChangeListener<Boolean> winListener;
+    // the undo and redo buttons are also disabled while the game is busy, so these are bound rather than set.
+    private final BooleanProperty nothingToUndo = new SimpleBooleanProperty(true);
+    private final BooleanProperty nothingToRedo = new SimpleBooleanProperty(true);
     private int gridDimensions;
 
     private final int MINIMUM_MAIN_WINDOW_WIDTH = 925;
@@ -49,6 +69,24 @@ public class MathDoku extends Application {
     private final int WINDOW_WIDTH = 925;
     private final int WINDOW_HEIGHT = 700;
 
+    // how long typing has to stop for before a typed save is checked.
+    private static final Duration VALIDATION_DELAY = Duration.millis(250);
+    // how long the solution behind hints is looked for after a save is loaded, before hints are given up on.
+    private static final long HINT_SOLVE_TIMEOUT_MILLIS = 10000;
+
+    // generates and solves away from the javaFX thread, a daemon so it never keeps the game open.
+    private final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "background-work");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // checks typed saves, on a thread of its own so a check never waits behind a long generate or solve.
+    private final ExecutorService validationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "save-validation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
      * Allows the user to press the undo button if there are operations in the undo
      * stack.
@@ -56,7 +94,7 @@ public class MathDoku extends Application {
      * @param bool If the undo button should be enabled or not
      */
     public void enableDisableUndo(boolean bool) {
-        undoButton.setDisable(bool);
+        nothingToUndo.set(bool);
     }
 
     /**
@@ -66,7 +104,7 @@ public class MathDoku extends Application {
      * @param bool If the redo button should be enabled or not
      */
     public void enableDisableRedo(boolean bool) {
-        redoButton.setDisable(bool);
+        nothingToRedo.set(bool);
     }
 
     /**
@@ -109,10 +147,11 @@ public class MathDoku extends Application {
 
         // grid slider
         HBox sliderHBox = new HBox();
-        Slider slider = new Slider(0, 10, 6);
+        Slider slider = new Slider(1, 16, 6);
         slider.setMaxHeight(Double.MAX_VALUE);
         slider.setMaxHeight(Double.MAX_VALUE);
-        sliderHBox.getChildren().addAll(slider);
+        CheckBox uniqueCheckBox = new CheckBox("Unique solution");
+        sliderHBox.getChildren().addAll(slider, uniqueCheckBox);
         sliderHBox.setAlignment(Pos.CENTER);
         sliderHBox.setSpacing(10);
         slider.setShowTickLabels(true);
@@ -158,43 +197,56 @@ public class MathDoku extends Application {
                 File file = fileChooser.showOpenDialog(stage);
 
                 if (file != null) {
+                    Puzzle puzzle = null;
+                    String problem = "";
+
                     try {
-                        BufferedReader br = new BufferedReader(new FileReader(file));
-                        List<String> list = new ArrayList<String>();
-
-                        String tempString;
-                        String text = "";
-                        while ((tempString = br.readLine()) != null) {
-                            list.add(tempString);
-                            text += tempString + System.lineSeparator();
+                        if (PuzzlePack.isPack(file.toPath())) {
+                            // a pack holds lots of puzzles, pick one at random without reading the rest.
+                            PuzzlePack pack = PuzzlePack.open(file.toPath());
+                            if (pack.size() == 0) {
+                                problem = System.lineSeparator() + "The puzzle pack is empty";
+                            } else {
+                                puzzle = pack.get(new Random().nextInt(pack.size()));
+                            }
+                        } else {
+                            // read the first puzzle in the file as it streams in.
+                            try (BufferedReader br = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                                puzzle = new PuzzleParser(br).next();
+                            }
                         }
+                    } catch (IOException e) {
+                        // a file that can't be read, a corrupt pack or a badly formatted save.
+                        problem = System.lineSeparator() + e.getMessage();
+                    }
 
-                        br.close();
-
-                        // check it meets the correct formatting, otherwise create an alert
-                        if (isInvalid(text)) {
-                            Alert alert = new Alert(Alert.AlertType.WARNING,
-                                    "The file you selected is not formatted correctly");
-                            alert.setTitle("Incorrect format");
-                            alert.setHeaderText("");
-
-                            // set background
-                            alert.getDialogPane().getStylesheets()
-                                    .add(this.getClass().getResource("style.css").toExternalForm());
-                            alert.getDialogPane().setId("formatWarningDialog");
+                    if (puzzle != null && problem.isEmpty()) {
+                        String invalid = PuzzleValidator.validate(puzzle);
+                        problem = invalid == null ? "" : System.lineSeparator() + invalid;
+                    }
 
-                            alert.showAndWait();
+                    // check it meets the correct formatting, otherwise create an alert
+                    if (puzzle == null || !problem.isEmpty()) {
+                        Alert alert = new Alert(Alert.AlertType.WARNING,
+                                "The file you selected is not formatted correctly" + problem);
+                        alert.setTitle("Incorrect format");
+                        alert.setHeaderText("");
 
-                            return;
-                        }
+                        // set background
+                        alert.getDialogPane().getStylesheets()
+                                .add(this.getClass().getResource("style.css").toExternalForm());
+                        alert.getDialogPane().setId("formatWarningDialog");
 
-                        // update dimensions and start the main game
-                        mathDokuModel.setCellDimensions(0.07);
-                        mathDokuModel.setGridDimensions(gridDimensions);
-                        startMainGame(stage, list);
-                    } catch (Exception e) {
+                        alert.showAndWait();
 
+                        return;
                     }
+
+                    // update dimensions and start the main game
+                    gridDimensions = puzzle.getSize();
+                    mathDokuModel.setCellDimensions(0.07);
+                    mathDokuModel.setGridDimensions(gridDimensions);
+                    startMainGame(stage, puzzle);
                 }
             }
         }
@@ -224,7 +276,7 @@ public class MathDoku extends Application {
              */
             @Override
             public void handle(ActionEvent arg0) {
-                Dialog<String> textDialog = new Dialog<String>();
+                Dialog<Puzzle> textDialog = new Dialog<Puzzle>();
                 textDialog.setTitle("Load from text");
                 textDialog.setHeaderText("");
 
@@ -237,18 +289,24 @@ public class MathDoku extends Application {
 
                 TextArea textArea = new TextArea();
                 Label label = new Label("Please enter text with correct formatting");
+                Label errorLabel = new Label();
+                errorLabel.setWrapText(true);
 
                 grid.add(label, 0, 0);
                 grid.add(textArea, 1, 0);
+                grid.add(errorLabel, 1, 1);
 
                 textDialog.getDialogPane().setContent(grid);
 
                 // set focus on the textArea
                 Platform.runLater(() -> textArea.requestFocus());
 
+                // the puzzle from the last save that was checked and found valid.
+                ObjectProperty<Puzzle> validPuzzle = new SimpleObjectProperty<Puzzle>();
+
                 textDialog.setResultConverter(dialogButton -> {
                     if (dialogButton == ButtonType.OK) {
-                        return textArea.getText();
+                        return validPuzzle.get();
                     }
                     return null;
                 });
@@ -260,25 +318,58 @@ public class MathDoku extends Application {
 
                 Button okButton = (Button) textDialog.getDialogPane().lookupButton(ButtonType.OK);
 
-                // disable the okay button if the format is incorrect
-                BooleanBinding isInvalidBinding = Bindings.createBooleanBinding(() -> isInvalid(textArea.getText()),
-                        textArea.textProperty());
-                okButton.disableProperty().bind(isInvalidBinding);
+                // disable the okay button until the text has been checked and the format is correct
+                okButton.disableProperty().bind(validPuzzle.isNull());
+
+                // check the text in the background once the user stops typing, so big saves don't hold up typing.
+                // only the latest check counts, any older one still running is cancelled.
+                PauseTransition pause = new PauseTransition(VALIDATION_DELAY);
+                ObjectProperty<Task<Puzzle>> latestCheck = new SimpleObjectProperty<Task<Puzzle>>();
+                pause.setOnFinished(e -> {
+                    String text = textArea.getText();
+                    Task<Puzzle> check = new Task<Puzzle>() {
+                        @Override
+                        protected Puzzle call() throws Exception {
+                            return readSave(text);
+                        }
+                    };
+                    check.setOnSucceeded(done -> {
+                        if (latestCheck.get() == check) {
+                            validPuzzle.set(check.getValue());
+                            errorLabel.setText("");
+                        }
+                    });
+                    check.setOnFailed(done -> {
+                        if (latestCheck.get() == check) {
+                            errorLabel.setText(check.getException().getMessage());
+                        }
+                    });
+                    latestCheck.set(check);
+                    validationExecutor.execute(check);
+                });
+                textArea.textProperty().addListener((observable, oldValue, newValue) -> {
+                    validPuzzle.set(null);
+                    if (latestCheck.get() != null) {
+                        latestCheck.get().cancel();
+                        latestCheck.set(null);
+                    }
+                    pause.playFromStart();
+                });
 
                 // display dialog
-                Optional<String> result = textDialog.showAndWait();
-
-                // send the list of cages to mathDokuModel
-                result.ifPresent(resultString -> {
-                    List<String> list = new ArrayList<String>();
-                    for (String line : resultString.split("\n")) {
-                        list.add(line);
-                    }
+                Optional<Puzzle> result = textDialog.showAndWait();
+                pause.stop();
+                if (latestCheck.get() != null) {
+                    latestCheck.get().cancel();
+                }
 
+                // send the cages to mathDokuModel
+                result.ifPresent(puzzle -> {
                     // update dimensions and start the main game
+                    gridDimensions = puzzle.getSize();
                     mathDokuModel.setCellDimensions(0.07);
                     mathDokuModel.setGridDimensions(gridDimensions);
-                    startMainGame(stage, list);
+                    startMainGame(stage, puzzle);
                 });
 
             }
@@ -290,9 +381,10 @@ public class MathDoku extends Application {
         autoGenerateButton.setOnAction(e -> {
             //TODO: let the user choose this with a slider or something.
             gridDimensions = (int)slider.getValue();
+            mathDokuModel.setUniqueSolution(uniqueCheckBox.isSelected());
             mathDokuModel.setCellDimensions(0.07);
             mathDokuModel.setGridDimensions(gridDimensions);
-            startMainGame(stage, new ArrayList<String>());
+            startMainGame(stage, null);
         });
 
         // set title scene
@@ -331,14 +423,14 @@ public class MathDoku extends Application {
      * <p>
      * Instansiates the GUI with buttons and grid and contains all the method
      * handlers for each button. I've tried to keep all javaFX components only
-     * accessable through this, exceptions include MathDokuCell and MathDokuCanvas.
+     * accessable through this, the exception is MathDokuBoard.
      * Is called by javaFX once the launch method has been called.
      * 
      * @param stage A javaFX object that represents the GUI, all javaFX objects must
      *              be added to it.
-     * @param list  The list of grid cages that should be loaded.
+     * @param puzzle The puzzle that should be loaded, or null to generate a new one.
      */
-    public void startMainGame(Stage stage, List<String> list) {
+    public void startMainGame(Stage stage, Puzzle puzzle) {
         
 
         GridPane root = new GridPane();
@@ -349,6 +441,12 @@ public class MathDoku extends Application {
 
         Scene scene = new Scene(root,WINDOW_WIDTH, WINDOW_HEIGHT);
 
+        // the generator or solver running in the background, if any.
+        ObjectProperty<Task<?>> runningTask = new SimpleObjectProperty<Task<?>>();
+        BooleanBinding busy = runningTask.isNotNull();
+        // the solution behind hints being worked out after a save is loaded, the grid can be played meanwhile.
+        ObjectProperty<Task<?>> hintTask = new SimpleObjectProperty<Task<?>>();
+
         // button box
         VBox buttonVBox = new VBox();
         buttonVBox.setAlignment(Pos.CENTER);
@@ -356,8 +454,8 @@ public class MathDoku extends Application {
 
         // undo redo buttons
         HBox undoRedoHBox = new HBox();
-        undoButton = new Button("Undo");
-        redoButton = new Button("Redo");
+        Button undoButton = new Button("Undo");
+        Button redoButton = new Button("Redo");
 
         undoRedoHBox.getChildren().addAll(undoButton, redoButton);
         undoRedoHBox.setAlignment(Pos.CENTER);
@@ -366,8 +464,10 @@ public class MathDoku extends Application {
         undoButton.setOnAction(e -> mathDokuModel.undo());
         redoButton.setOnAction(e -> mathDokuModel.redo());
 
-        undoButton.setDisable(true);
-        redoButton.setDisable(true);
+        nothingToUndo.set(true);
+        nothingToRedo.set(true);
+        undoButton.disableProperty().bind(busy.or(nothingToUndo));
+        redoButton.disableProperty().bind(busy.or(nothingToRedo));
 
         undoButton.setMaxWidth(70);
         undoButton.setMaxHeight(70);
@@ -449,6 +549,7 @@ public class MathDoku extends Application {
         }
 
         clearButton.setOnAction(new ClearButtonEventHandler());
+        clearButton.disableProperty().bind(busy);
 
         // show mistakes button
         HBox showMistakesHBox = new HBox();
@@ -464,8 +565,6 @@ public class MathDoku extends Application {
 
         showMistakesButton.setOnAction(e -> {
             mathDokuModel.setHighlight(showMistakesButton.isSelected());
-            mathDokuModel.check();
-            mathDokuModel.checkMaths();
         });
 
         // showMistakesHBox.prefWidthProperty().bind(buttonVBox.prefWidthProperty());
@@ -482,7 +581,20 @@ public class MathDoku extends Application {
         solveButton.prefWidthProperty().bind(solveHBox.widthProperty());
         solveButton.prefHeightProperty().bind(solveHBox.widthProperty());
 
-        solveButton.setOnAction(e -> mathDokuModel.solve(true));
+        // the solve button cancels whatever is running instead.
+        solveButton.textProperty().bind(Bindings.when(busy).then("Cancel").otherwise("Solve"));
+        solveButton.setOnAction(e -> {
+            if (runningTask.get() != null) {
+                runningTask.get().cancel();
+            } else {
+                // the full solve finds the solution anyway, and would otherwise wait behind the search for hints.
+                if (hintTask.get() != null) {
+                    hintTask.get().cancel();
+                }
+                runInBackground(mathDokuModel.createSolveTask(), runningTask,
+                        solution -> mathDokuModel.showSolution(solution, true), null);
+            }
+        });
 
         solveHBox.prefWidthProperty().bind(buttonVBox.prefWidthProperty());
 
@@ -499,6 +611,7 @@ public class MathDoku extends Application {
         hintButton.prefHeightProperty().bind(hintHBox.widthProperty());
 
         hintButton.setOnAction(e -> mathDokuModel.hint());
+        hintButton.disableProperty().bind(busy.or(hintTask.isNotNull()));
 
         hintHBox.prefWidthProperty().bind(buttonVBox.prefWidthProperty());
 
@@ -569,10 +682,6 @@ public class MathDoku extends Application {
                     if (target instanceof Button) {
                         Button button = (Button) arg0.getTarget();
                         mathDokuModel.getCurrentCell().updateNumber(button.getText(), true);
-
-                        // TODO: check if the show errors button is toggled and pass it in as a
-                        // parameter
-                        mathDokuModel.check();
                     }
                 }
             }
@@ -585,6 +694,7 @@ public class MathDoku extends Application {
 
         numberButtonsVBox.prefWidthProperty().bind(root.prefWidthProperty());
         numberButtonsVBox.prefHeightProperty().bind(root.prefHeightProperty());
+        numberButtonsVBox.disableProperty().bind(busy);
 
         // ensure that only number buttons appear that are valid for the gridDimensions
         for (int i = 1; i < 10 && i <= gridDimensions; i++) {
@@ -606,38 +716,34 @@ public class MathDoku extends Application {
             numberButtonsVBox.getChildren().add(button);
         }
 
-        GridPane grid = new GridPane();
-        grid.setAlignment(Pos.CENTER);
-        grid.setHgap(0);
-        grid.setVgap(0);
+        // the whole grid is drawn on one canvas, kept for the next game of the same size along with the cells
+        // the model keeps.
+        if (board == null || board.getGridDimensions() != gridDimensions) {
+            if (board != null) {
+                board.dispose();
+            }
+            board = new MathDokuBoard(mathDokuModel);
+        }
+        MathDokuBoard grid = board;
         grid.setPadding(new Insets(10, 10, 10, 10));
-
-        // Generates the grid of MathDokuCells.
-        // Adds each cell to a matrix in mathDokuModel.
+        grid.disableProperty().bind(busy);
         for (int i = 0; i < gridDimensions; i++) {
             for (int j = 0; j < gridDimensions; j++) {
-                MathDokuCell cell = new MathDokuCell(mathDokuModel);
-                
-                cell.winProperty().addListener((observable, oldValue, newValue) -> {
-                    if(newValue){
-                        scene.getRoot().setId("victoryRoyale");
-                    }
-                });
-
-                grid.add(cell, i, j, 1, 1);
-                mathDokuModel.addCell(cell, i, j);
-
-                // Bind canvas size to stack pane size.
-                grid.prefWidthProperty().addListener((observable, oldValue, newValue) -> {
-                    cell.setRealWidth((double) newValue / (grid.getColumnCount() + 2));
-                });
-
-                grid.prefHeightProperty().addListener((observable, oldValue, newValue) -> {
-                    cell.setRealHeight((double) newValue / (grid.getRowCount() + 2));
-                });
+                mathDokuModel.getCell(i, j).setBoard(grid);
             }
         }
 
+        // only the latest game's scene celebrates a win.
+        if (winListener != null) {
+            mathDokuModel.winProperty().removeListener(winListener);
+        }
+        winListener = (observable, oldValue, newValue) -> {
+            if (newValue) {
+                scene.getRoot().setId("victoryRoyale");
+            }
+        };
+        mathDokuModel.winProperty().addListener(winListener);
+
         // Bind grid size to parent grid size.
         grid.prefWidthProperty().bind(root.prefWidthProperty());
         grid.prefHeightProperty().bind(root.prefHeightProperty());
@@ -658,18 +764,17 @@ public class MathDoku extends Application {
              */
             @Override
             public void handle(KeyEvent arg0) {
+                // the grid is being replaced or filled in.
+                if (busy.get()) {
+                    return;
+                }
                 if (mathDokuModel.hasCurrentCell()) {
                     // check if they want to delete or enter a number
                     if (arg0.getCode() == KeyCode.BACK_SPACE) {
                         mathDokuModel.getCurrentCell().updateNumber("delete", true);
                     } else {
-                        try {
-                            // Make sure it is an integer
-                            Integer.parseInt(arg0.getText());
-                            mathDokuModel.getCurrentCell().updateNumber(arg0.getText(), true);
-                        } catch (NumberFormatException e) {
-                            // Someone tried to type something that isn't a number or delete, ignore it
-                        }
+                        // anything that isn't a digit is ignored by the cell
+                        mathDokuModel.getCurrentCell().updateNumber(arg0.getText(), true);
                     }
                 }
             }
@@ -689,22 +794,30 @@ public class MathDoku extends Application {
         //add grid and buttons to GridPane
         root.add(numberButtonsVBox, 0, 0, 1, 1);
         root.add(grid, 1, 0, 1, 1);
+        // spins over the grid while the generator or solver is running.
+        ProgressIndicator progressIndicator = new ProgressIndicator();
+        progressIndicator.visibleProperty().bind(busy);
+        progressIndicator.setMouseTransparent(true);
+        GridPane.setHalignment(progressIndicator, HPos.CENTER);
+        root.add(progressIndicator, 1, 0, 1, 1);
         //root.add(numberAndGridHBox, 0, 0, 1, 1);
         root.add(buttonVBox, 2, 0, 1, 1);
 
         //fill grid here
 
-        //TODO: let mathDokuModel make the decision which one to generate by passing in list
-        
-
-        if (list.isEmpty()){
+        if (puzzle == null){
             //generate random
             //mathDokuModel.generateDefault2Grid();
             //mathDokuModel.generateDefault3Grid();
             //mathDokuModel.generateDefault6Grid();
-            mathDokuModel.generateNewGrid();
+            // a cancelled or failed grid goes back to the title screen.
+            runInBackground(mathDokuModel.createGenerateTask(), runningTask, mathDokuModel::loadGenerated,
+                    () -> start(stage));
         } else {
-            mathDokuModel.generateFromList(list);
+            mathDokuModel.loadPuzzle(puzzle);
+            // work out the solution for hints without showing it, or holding up the game.
+            runInBackground(mathDokuModel.createSolveTask(HINT_SOLVE_TIMEOUT_MILLIS), hintTask,
+                    solution -> mathDokuModel.showSolution(solution, false), null);
         }
 
         
@@ -737,128 +850,64 @@ public class MathDoku extends Application {
     }
     
     /**
-     * Checks if format of saves are incorrect.
+     * Runs a generator or solver task away from the javaFX thread, so the window
+     * keeps responding however long it takes.
      * <p>
-     * If the load attempt is successful then gridDimensions are updated.
+     * The task is kept in runningTask until it is done, so the game can show it
+     * is busy and let the user cancel it. Its result is passed on from the
+     * task's succeeded handler, which javaFX runs on its own thread as one
+     * event, so the whole grid is updated in a single batch.
      * 
-     * @param text The save that the user is attempting to load.
-     * @return If the save is invalid
+     * @param <T>         The type of the task's result.
+     * @param task        The task to run.
+     * @param runningTask Holds the task while it runs.
+     * @param onSucceeded Takes the task's result.
+     * @param onStopped   Runs if the task is cancelled or fails, or null.
      */
-    private boolean isInvalid(String text){
-        //first get the square root of the highest number to get dimensions
-        List<Integer[]> allNumbersList = new ArrayList<Integer[]>();
-
-        try {
-            Set<Integer> usedCellsSet = new HashSet<Integer>();
-
-            //check formatting
-            for (String line : text.split(System.lineSeparator())) {
-                String[] array = line.split(" ");
-                String[] targetArray = array[0].split("");
-                String[] numberArray = array[1].split(",");
-
-                //allow single cages with no maths symbol.
-                if (targetArray.length == 1){
-                    try {
-                        Integer.parseInt(targetArray[0]);
-                    } catch (NumberFormatException e) {
-                        return true;
-                    }
-                } else {  
-                    for (int i = 0; i < targetArray.length-1; i++) {
-                        try {
-                            Integer.parseInt(targetArray[i]);
-                        } catch (NumberFormatException e) {
-                            return true;
-                        }
-                    }
-
-                    if (!targetArray[targetArray.length-1].matches("\\+|-|x|÷")){
-                        return true;
-                    }
-                }
-
-
-                //if there is only one cell
-                if (numberArray.length == 1){
-                    try {
-                        Integer.parseInt(numberArray[0]);
-                        allNumbersList.add(new Integer[] {Integer.parseInt(array[1])});
-                    } catch (NumberFormatException e) {
-                        return true;
-                    }
-                } else {
-                    Integer[] intArray = new Integer[numberArray.length];
-                    
-                    for (int i = 0; i < numberArray.length; i++) {
-                        try {
-                            Integer cell = Integer.parseInt(numberArray[i]);
-
-                            //check the cell has not been used before
-                            if (!usedCellsSet.add(cell)){
-                                return true;
-                            }
-
-                            //add the cells so we can check if they are adjacent
-                            intArray[i] = cell;
-
-                        } catch (NumberFormatException e) {
-                            return true;
-                        }
-                    }
-                    allNumbersList.add(intArray);
-                }
-            }
-            
-            Integer highestNumber = 0;
-            Integer count = 0;
-            
-            for (Integer[] list : allNumbersList) {
-                for (Integer integer : list) {
-                    //update highest number
-                    count++;
-                    highestNumber = integer >= highestNumber ? integer : highestNumber;
-                }
-            }
-
-            //find new grid dimensions
-            //this part only works once all cells have been typed out and the highest number is a valid grid dimension
-            Double tempGridDimensions = Math.sqrt(highestNumber);
-
-            //check it is a square and that the highest number matches the dimensions
-            if (Math.floor(Math.sqrt(count)) == tempGridDimensions){
-                System.out.println(tempGridDimensions);
-            } else {
-                return true;
+    private <T> void runInBackground(Task<T> task, ObjectProperty<Task<?>> runningTask, Consumer<T> onSucceeded,
+            Runnable onStopped) {
+        runningTask.set(task);
+        task.setOnSucceeded(e -> {
+            runningTask.set(null);
+            onSucceeded.accept(task.getValue());
+        });
+        task.setOnCancelled(e -> {
+            runningTask.set(null);
+            if (onStopped != null) {
+                onStopped.run();
             }
-
-            //check cages are valid
-            for (Integer[] list : allNumbersList) {
-                //only need to test half?
-                //sort so that the order of cages doesnt matter
-                Arrays.sort(list);
-                for (int i = 0; i < list.length/2; i++) {
-                    Integer cell1 = list[i];
-                    boolean check = true;
-                    for (int j = i+1; j < list.length; j++) {
-                        Integer cell2 = list[j];
-                        if (cell1 == cell2-1 || cell1 == cell2-tempGridDimensions){
-                            check = false;
-                        }
-                    }
-                    if (check){
-                        return true;
-                    }
-                }
+        });
+        task.setOnFailed(e -> {
+            runningTask.set(null);
+            Alert alert = new Alert(Alert.AlertType.WARNING, task.getException().getMessage());
+            alert.setTitle("Something went wrong");
+            alert.setHeaderText("");
+            alert.getDialogPane().getStylesheets().add(this.getClass().getResource("style.css").toExternalForm());
+            alert.showAndWait();
+            if (onStopped != null) {
+                onStopped.run();
             }
+        });
+        backgroundExecutor.execute(task);
+    }
 
-            //save will be loaded so now update gridDimensions
-            gridDimensions = (int)Math.floor(tempGridDimensions);
-            return false;
-        } catch (IndexOutOfBoundsException e) {
-            return true;
+    /**
+     * Reads a save the user is attempting to load, checking the format and the cages.
+     * <p>
+     * Safe to call off the javaFX thread.
+     * 
+     * @param text The save that the user is attempting to load.
+     * @return The puzzle.
+     * @throws PuzzleParseException If the save isn't formatted correctly.
+     * @throws IllegalArgumentException If the cages are invalid, saying what is wrong.
+     */
+    private static Puzzle readSave(String text) throws PuzzleParseException {
+        Puzzle puzzle = PuzzleParser.parse(text);
+        String problem = PuzzleValidator.validate(puzzle);
+        if (problem != null) {
+            throw new IllegalArgumentException(problem);
         }
-        
+        return puzzle;
     }
 
     public static void main(String[] args) {
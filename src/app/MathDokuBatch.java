@@ -0,0 +1,134 @@
+package app;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import app.generator.BatchGenerator;
+import app.puzzle.PuzzleCodec;
+import app.puzzle.PuzzlePackWriter;
+import app.puzzle.PuzzleWriter;
+
+/**
+ * Command line entry point for making packs of puzzles without starting the game.
+ * <p>
+ * Puzzles are written in the save format, separated by blank lines, in order of index. With
+ * --binary they are written in the {@link PuzzleCodec} format instead, and with --pack as an indexed pack that
+ * puzzles can be fetched from by index.
+ * <p>
+ * If the batch fails part way through, an output file is deleted and the exit status is 1. A pack written to
+ * standard output is left without its index, so it can't be opened as a pack.
+ */
+public class MathDokuBatch {
+
+    private static final String USAGE = "Usage: MathDokuBatch --size N --count K [--unique] [--seed S] "
+            + "[--threads T] [--binary | --pack] [--out FILE]";
+
+    /**
+     * @param args The options from USAGE, the pack goes to standard output unless --out is given.
+     */
+    public static void main(String[] args) throws IOException {
+        int size = 0;
+        int count = 0;
+        boolean unique = false;
+        boolean binary = false;
+        boolean pack = false;
+        Long seed = null;
+        Integer threads = null;
+        String out = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--size":
+                        size = Integer.parseInt(args[++i]);
+                        break;
+                    case "--count":
+                        count = Integer.parseInt(args[++i]);
+                        break;
+                    case "--unique":
+                        unique = true;
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--binary":
+                        binary = true;
+                        break;
+                    case "--pack":
+                        pack = true;
+                        break;
+                    case "--out":
+                        out = args[++i];
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            size = 0;
+        }
+
+        if (size < 1 || size > 31 || count < 1 || (threads != null && threads < 1) || (binary && pack)) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        BatchGenerator batch = new BatchGenerator(size);
+        batch.setUniqueSolution(unique);
+        if (seed != null) {
+            batch.setSeed(seed);
+        }
+        if (threads != null) {
+            batch.setParallelism(threads);
+        }
+
+        long start = System.nanoTime();
+        // standard output through its descriptor, System.out would hide any write that fails.
+        OutputStream stream = out == null ? new FileOutputStream(FileDescriptor.out) : new FileOutputStream(out);
+        try {
+            if (pack) {
+                try (PuzzlePackWriter writer = new PuzzlePackWriter(stream)) {
+                    try {
+                        batch.generate(count, (index, generated) -> writer.add(generated.getPuzzle()));
+                    } catch (IOException | RuntimeException e) {
+                        // a pack missing puzzles must not look finished.
+                        writer.abort();
+                        throw e;
+                    }
+                }
+            } else if (binary) {
+                try (OutputStream buffered = new BufferedOutputStream(stream)) {
+                    PuzzleCodec.writeHeader(buffered);
+                    batch.generate(count, (index, generated) -> PuzzleCodec.write(generated.getPuzzle(), buffered));
+                }
+            } else {
+                // utf-8 so the division sign survives whatever the platform charset is.
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
+                    batch.generate(count, (index, generated) -> {
+                        PuzzleWriter.write(generated.getPuzzle(), writer);
+                        writer.write(System.lineSeparator());
+                    });
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Generating failed: " + e);
+            if (out != null) {
+                Files.deleteIfExists(Paths.get(out));
+            }
+            System.exit(1);
+        }
+        System.err.println("Generated " + count + " puzzles in " + (System.nanoTime() - start) / 1000000 + "ms");
+    }
+}
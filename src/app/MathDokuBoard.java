@@ -0,0 +1,303 @@
+package app;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javafx.animation.Animation;
+import javafx.animation.AnimationTimer;
+import javafx.animation.PauseTransition;
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+import javafx.util.Duration;
+
+/**
+ * Draws the whole grid on one canvas, the cells, their numbers, cage targets and cage walls.
+ * <p>
+ * The cells are plain objects that tell the board when they change, the board keeps a dirty flag for every cell
+ * and redraws only those cells on the next JavaFX pulse, however many changes were made in between. Resizing or
+ * changing the text size marks every cell. Clicks are mapped back to the cell under the mouse.
+ * <p>
+ * Font sizes are worked out once for the whole grid whenever the cells or the text size change, and fonts are
+ * cached by size. While the window is being dragged to a new size the grid is only laid out again every
+ * {@link #RESIZE_THROTTLE}, with a last layout once the size stops changing.
+ * <p>
+ * However big the grid is, it only adds one region and one canvas to the scene.
+ */
+public class MathDokuBoard extends Region {
+    private static final Color WALL_COLOR = Color.BLUE;
+    private static final double LINE_WIDTH = 2.0;
+    private static final double WALL_WIDTH = 5.0;
+    // how often the grid is laid out again while the board keeps changing size.
+    private static final Duration RESIZE_THROTTLE = Duration.millis(100);
+
+    // fonts by whole pixel size, shared by every board and only touched on the javaFX thread.
+    private static final Map<Integer, Font> NUMBER_FONTS = new HashMap<Integer, Font>();
+    private static final Map<Integer, Font> TARGET_FONTS = new HashMap<Integer, Font>();
+
+    private final MathDokuModel mathDokuModel;
+    private final Canvas canvas = new Canvas();
+    private final int gridDimensions;
+    private final boolean[] dirty;
+    private boolean anyDirty = false;
+
+    // where the cells are on the canvas, set on every layout.
+    private double cellSize;
+    private double originX;
+    private double originY;
+    private Font numberFont;
+    private Font targetFont;
+
+    private final PauseTransition resizeThrottle = new PauseTransition(RESIZE_THROTTLE);
+    private boolean resizePending = false;
+
+    // kept so it can be taken off the model, which outlives the board.
+    private final ChangeListener<Number> textSizeListener = (observable, oldValue, newValue) -> {
+        updateFonts();
+        invalidateAll();
+    };
+
+    private final AnimationTimer redrawTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            redraw();
+            // nothing to do until something changes again.
+            stop();
+        }
+    };
+
+    /**
+     * Constructor, sets up the canvas and lets the user select cells by clicking on them.
+     *
+     * @param mathDokuModel Reference to the MathDokuModel class, which holds the cells.
+     */
+    public MathDokuBoard(MathDokuModel mathDokuModel) {
+        this.mathDokuModel = mathDokuModel;
+        gridDimensions = mathDokuModel.getGridDimensions();
+        dirty = new boolean[gridDimensions * gridDimensions];
+
+        getChildren().add(canvas);
+        setMinSize(0, 0);
+
+        // a throttled canvas can be bigger than the board for a moment, so don't let it draw over anything else.
+        Rectangle clip = new Rectangle();
+        clip.widthProperty().bind(widthProperty());
+        clip.heightProperty().bind(heightProperty());
+        setClip(clip);
+
+        resizeThrottle.setOnFinished(e -> {
+            if (resizePending) {
+                resizePending = false;
+                fitCanvas();
+                resizeThrottle.playFromStart();
+            }
+        });
+
+        mathDokuModel.cellDimensionsProperty().addListener(textSizeListener);
+
+        addEventHandler(MouseEvent.MOUSE_CLICKED, e -> {
+            MathDokuCell cell = cellAt(e.getX(), e.getY());
+            if (cell != null) {
+                cell.select();
+            }
+        });
+    }
+
+    /**
+     * @return The grid dimensions this board was made for.
+     */
+    public int getGridDimensions() {
+        return gridDimensions;
+    }
+
+    /**
+     * Stops the board listening to the model and drawing, once a game of another size replaces it.
+     */
+    public void dispose() {
+        mathDokuModel.cellDimensionsProperty().removeListener(textSizeListener);
+        redrawTimer.stop();
+        resizeThrottle.stop();
+    }
+
+    /**
+     * Finds the cell at a point on the board.
+     *
+     * @param x The x coordinate, relative to the board.
+     * @param y The y coordinate, relative to the board.
+     * @return The cell, or null if the point isn't on the grid.
+     */
+    public MathDokuCell cellAt(double x, double y) {
+        if (cellSize <= 0 || x < originX || y < originY) {
+            return null;
+        }
+        int column = (int) ((x - originX) / cellSize);
+        int row = (int) ((y - originY) / cellSize);
+        if (column >= gridDimensions || row >= gridDimensions) {
+            return null;
+        }
+        return mathDokuModel.getCell(column, row);
+    }
+
+    /**
+     * Marks a cell to be redrawn on the next pulse.
+     *
+     * @param cell The cell that changed.
+     */
+    public void invalidate(MathDokuCell cell) {
+        int index = cell.getIndex();
+        if (dirty[index]) {
+            return;
+        }
+        dirty[index] = true;
+        requestRedraw();
+    }
+
+    /**
+     * Marks every cell to be redrawn on the next pulse.
+     */
+    public void invalidateAll() {
+        Arrays.fill(dirty, true);
+        requestRedraw();
+    }
+
+    private void requestRedraw() {
+        if (!anyDirty) {
+            anyDirty = true;
+            redrawTimer.start();
+        }
+    }
+
+    /**
+     * Fits the canvas to the board straight away, unless the board was resized moments ago, in which case it is
+     * fitted once the throttle is up.
+     */
+    @Override
+    protected void layoutChildren() {
+        if (getWidth() == canvas.getWidth() && getHeight() == canvas.getHeight()) {
+            return;
+        }
+        if (resizeThrottle.getStatus() == Animation.Status.RUNNING) {
+            resizePending = true;
+            return;
+        }
+        fitCanvas();
+        resizeThrottle.playFromStart();
+    }
+
+    /**
+     * Fits the canvas to the board and the grid inside the board's padding, as big square cells in the middle.
+     */
+    private void fitCanvas() {
+        double width = getWidth();
+        double height = getHeight();
+        canvas.setWidth(width);
+        canvas.setHeight(height);
+        double innerWidth = width - snappedLeftInset() - snappedRightInset();
+        double innerHeight = height - snappedTopInset() - snappedBottomInset();
+        cellSize = Math.max(0, Math.floor(Math.min(innerWidth, innerHeight) / gridDimensions));
+        originX = snappedLeftInset() + Math.floor((innerWidth - cellSize * gridDimensions) / 2);
+        originY = snappedTopInset() + Math.floor((innerHeight - cellSize * gridDimensions) / 2);
+
+        canvas.getGraphicsContext2D().clearRect(0, 0, width, height);
+        updateFonts();
+        invalidateAll();
+    }
+
+    /**
+     * Works out the font sizes for the whole grid, the numbers scale with the cells by as much as the user has
+     * chosen.
+     */
+    private void updateFonts() {
+        double textSize = cellSize * mathDokuModel.getCellDimensions();
+        numberFont = NUMBER_FONTS.computeIfAbsent((int) Math.round(textSize * 2.5),
+                size -> Font.font("Arial", FontWeight.BOLD, size));
+        targetFont = TARGET_FONTS.computeIfAbsent((int) Math.round(textSize),
+                size -> Font.font("Arial", size));
+    }
+
+    /**
+     * Draws every dirty cell.
+     */
+    private void redraw() {
+        anyDirty = false;
+        if (cellSize <= 0) {
+            Arrays.fill(dirty, false);
+            return;
+        }
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        for (int index = 0; index < dirty.length; index++) {
+            if (dirty[index]) {
+                dirty[index] = false;
+                drawCell(gc, mathDokuModel.getCell(index % gridDimensions, index / gridDimensions));
+            }
+        }
+    }
+
+    /**
+     * Draws one cell, clipped to its own square so that lines on its edges don't touch its neighbours.
+     */
+    private void drawCell(GraphicsContext gc, MathDokuCell cell) {
+        double x = originX + (cell.getIndex() % gridDimensions) * cellSize;
+        double y = originY + (cell.getIndex() / gridDimensions) * cellSize;
+        double size = cellSize;
+
+        gc.save();
+        gc.beginPath();
+        gc.rect(x, y, size, size);
+        gc.clip();
+
+        gc.clearRect(x, y, size, size);
+        gc.setFill(cell.isSelected() ? Color.YELLOW : cell.getColor());
+        gc.fillRect(x, y, size, size);
+
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(LINE_WIDTH);
+        gc.strokeRect(x, y, size, size);
+
+        gc.setStroke(WALL_COLOR);
+        gc.setLineWidth(WALL_WIDTH);
+        //bottom
+        if (cell.hasCageWall(0)) {
+            gc.strokeLine(x, y + size, x + size, y + size);
+        }
+        //left
+        if (cell.hasCageWall(1)) {
+            gc.strokeLine(x, y, x, y + size);
+        }
+        //top
+        if (cell.hasCageWall(2)) {
+            gc.strokeLine(x, y, x + size, y);
+        }
+        //right
+        if (cell.hasCageWall(3)) {
+            gc.strokeLine(x + size, y, x + size, y + size);
+        }
+
+        gc.setFill(Color.BLACK);
+        String target = cell.getTargetNumber();
+        if (!target.isEmpty()) {
+            gc.setFont(targetFont);
+            gc.setTextAlign(TextAlignment.LEFT);
+            gc.setTextBaseline(VPos.TOP);
+            gc.fillText(target, x + WALL_WIDTH, y + WALL_WIDTH / 2);
+        }
+        if (cell.getNumber() != MathDokuCell.EMPTY) {
+            gc.setFont(numberFont);
+            gc.setTextAlign(TextAlignment.CENTER);
+            gc.setTextBaseline(VPos.CENTER);
+            gc.fillText(Integer.toString(cell.getNumber()), x + size / 2, y + size / 2);
+        }
+
+        gc.restore();
+    }
+}
@@ -2,8 +2,8 @@ package app;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-import java.util.Random;
+
+import app.puzzle.Operator;
 
 import javafx.scene.paint.Color;
 
@@ -11,7 +11,7 @@ import javafx.scene.paint.Color;
  * Encapsulates all the attributes that the cage needs.
  * <p>
  * Cage target is stored here, along with whether to display the target.
- * Contains all maths generation and maths checking.
+ * Contains all maths checking, done by the cage's {@link Operator}.
  * 
  * @author Theo Levison
  */
@@ -21,19 +21,22 @@ public class MathDokuCage extends ArrayList<MathDokuCell>{
     //TODO: use trimToSize() to optimise storage
 
     private int targetNumber;
-    private String sign;
+    private Operator operator;
     private boolean display = false;
-    private Random rand = new Random();
+    // if the last check found the cage filled in but not meeting its target.
+    private boolean wrong = false;
+    // the cage's numbers are copied here to be checked, so checking doesn't allocate.
+    private int[] values = new int[0];
 
     /**
      * Sets the cage's maths target.
      * 
      * @param targetNumber Target number.
-     * @param sign Mathmatical operator used to get to the target number.
+     * @param operator Mathmatical operator used to get to the target number.
      */
-    public void setTargetNumber(int targetNumber, String sign) {
+    public void setTargetNumber(int targetNumber, Operator operator) {
         this.targetNumber = targetNumber;
-        this.sign = sign;
+        this.operator = operator;
     }
 
     /**
@@ -42,7 +45,35 @@ public class MathDokuCage extends ArrayList<MathDokuCell>{
      * @return An array of the mathmatical operator used to get to the target number, followed by the target number.
      */
     public String[] getTarget(){
-        return new String[]{sign, String.valueOf(targetNumber)};
+        return new String[]{operator.getSymbol(), String.valueOf(targetNumber)};
+    }
+
+    /**
+     * @return The mathmatical operator used to get to the target number, null if there is no target yet.
+     */
+    public Operator getOperator() {
+        return operator;
+    }
+
+    /**
+     * @return The cage's target number.
+     */
+    public int getTargetNumber() {
+        return targetNumber;
+    }
+
+    /**
+     * @return If the cage was filled in without meeting its target when it was last checked.
+     */
+    public boolean isWrong() {
+        return wrong;
+    }
+
+    /**
+     * @param wrong If the cage is filled in without meeting its target.
+     */
+    public void setWrong(boolean wrong) {
+        this.wrong = wrong;
     }
 
     /**
@@ -53,264 +84,50 @@ public class MathDokuCage extends ArrayList<MathDokuCell>{
     public void addCell(MathDokuCell cell){
         add(cell);
         cell.setCage(MathDokuCage.this);
+        values = Arrays.copyOf(values, size());
     }
 
     /**
      * Checks if the numbers entered in the cage meet the math target.
      * 
      * @param highlight Whether or not to highlight.
-     * @return If the maths checks out.
+     * @return If the maths checks out, or the cage isn't filled in yet.
      */
     public boolean checkMaths(boolean highlight){
-        try {
-            float sum;
-            if (sign.equals("")){
-                //single cage
-                sum = Integer.parseInt(get(0).getNumber());
-            } else if (sign.equals("+")){
-                sum = 0;
-                for (MathDokuCell mathDokuCell : this){
-                    sum += Integer.parseInt(mathDokuCell.getNumber());
-                }
-            } else if (sign.equals("-")){
-                sum = 0;
-                ArrayList<Integer> list = new ArrayList<Integer>();
-                //sort low to high first (for this can be any order). Does prevent negative targets.
-                for (MathDokuCell mathDokuCell : this){
-                    list.add(Integer.parseInt(mathDokuCell.getNumber()));
-                }
-                list.sort(null); //low to high.
-                //then check subtraction.
-                for (Integer integer : list) {
-                    sum = integer-sum;
-                }
-            } else if (sign.equals("x")){
-                sum = 1;
-                for (MathDokuCell mathDokuCell : this){
-                    sum = sum * Integer.parseInt(mathDokuCell.getNumber());
-                }
-            } else {
-                sum = 1;
-                List<Integer> list = new ArrayList<Integer>();
-                //sort low to high first
-                for (MathDokuCell mathDokuCell : this){
-                    list.add(Integer.parseInt(mathDokuCell.getNumber()));
-                }
-                list.sort(null); //must be low to high otherwise it doesnt work.
-                //then check division.
-                for (Integer integer : list) {
-                    sum = (float)integer/sum;
-                }
-                //otherwise use Collections.sort(list).
-
-            }
-
-            if (sum == targetNumber){
+        for (int i = 0; i < size(); i++){
+            values[i] = get(i).getNumber();
+            if (values[i] == MathDokuCell.EMPTY){
+                //cell not filled in yet so dont highlight as wrong.
                 return true;
-            } else if (highlight){
-                //highlight cells
-                for (MathDokuCell mathDokuCell : this){
-                    mathDokuCell.highlight(Color.ORANGE);
-                }
-                return false;
-            } else {
-                return false;
             }
-        } catch (NumberFormatException e) {
-            //cell not filled in yet so dont highlight as wrong.
-            return true;
         }
-    }
-
-    //TODO: make this merge with above
-    public boolean checkMathsSolutions(){
 
-        for (MathDokuCell mathDokuCell : this){
-            if (mathDokuCell.getPossibleSolutionNumber() == 0){
-                //not finished solving yet so return true;
-                return true;
-            }
-        }
-        
-        float sum;
-        if (sign.equals("")){
-            //single cage
-            sum = get(0).getPossibleSolutionNumber();
-        } else if (sign.equals("+")){
-            sum = 0;
-            for (MathDokuCell mathDokuCell : this){
-                sum += mathDokuCell.getPossibleSolutionNumber();
-            }
-        } else if (sign.equals("-")){
-            sum = 0;
-            ArrayList<Integer> list = new ArrayList<Integer>();
-            //sort low to high first (for this can be any order). Does not prevent negative targets.
-            for (MathDokuCell mathDokuCell : this){
-                list.add(mathDokuCell.getPossibleSolutionNumber());
-            }
-            list.sort(null); //low to high.
-            //then check subtraction.
-            for (Integer integer : list) {
-                sum = integer-sum;
-            }
-        } else if (sign.equals("x")){
-            sum = 1;
-            for (MathDokuCell mathDokuCell : this){
-                sum = sum * mathDokuCell.getPossibleSolutionNumber();
-            }
-        } else {
-            sum = 1;
-            List<Integer> list = new ArrayList<Integer>();
-            //sort low to high first
+        if (operator.matches(values, size(), targetNumber)){
+            return true;
+        } else if (highlight){
+            //highlight cells
             for (MathDokuCell mathDokuCell : this){
-                list.add(mathDokuCell.getPossibleSolutionNumber());
-            }
-            list.sort(null); //must be low to high otherwise it doesnt work.
-            //then check division.
-            for (Integer integer : list) {
-                sum = (float)integer/sum;
+                mathDokuCell.highlight(Color.ORANGE);
             }
-            //otherwise use Collections.sort(list).
-
-        }
-
-        return sum == targetNumber;
-    }
-
-    /**
-     * If the cage size is 1, generate a target number.
-     * <p>
-     * Separated from fillBigCages so that random generation is easier.
-     * 
-     * @param gridDimensions Dimensions of the grid, to ensure that the random number generated is a valid target.
-     */
-    public void fillSingleCages(int gridDimensions){
-        if (size() == 1){
-            int num;
-            do {
-                num = rand.nextInt(gridDimensions);
-            } while (num == 0);
-            get(0).setFinalSolutionNumber(num);
-            //add number with highest priority
-            get(0).getPossibleSolutionList().setAbsoluteNumber(num);
-            targetNumber = num;
-            sign = "";
         }
+        return false;
     }
 
     /**
-     * Generates a mathmatical target from the numbers generated by the solution finder.
-     * <p>
-     * Ensures the target is valid by trying the calculations, if not the target is regenerated.
+     * Checks if the numbers the solver has put in the cage meet the math target.
      * 
-     * @param gridDimensions Dimensions of the grid, to ensure that the random number generated is a valid target.
+     * @return If the maths checks out, or the solver hasn't filled the cage in yet.
      */
-    public void fillBigCages(int gridDimensions){
-        if (size() != 1){
-            boolean division = true;
-            int divisionSolution = 0;
-
-            //check all division rules work before allowing division as an option.
-            int divisionQuotient = 1;
-            sign = "error";
-
-            //Took the easy way out and ill just sort them and lose a bunch of possibilites
-            ArrayList<Integer> divList = new ArrayList<Integer>();
-            //sort low to high first (for this can be any order). Does prevent negative targets.
-            for (MathDokuCell mathDokuCell : this){
-                divList.add(mathDokuCell.getFinalSolutionNumber());
-            }
-            divList.sort(null); //low to high.
-            //then check subtraction.
-            for (Integer integer : divList) {
-                if (integer%divisionQuotient == 0){
-                    divisionQuotient = integer/divisionQuotient;
-                } else {
-                    divisionQuotient = 1;
-                    break;
-                }
-            }
-
-
-            /*
-            //check if the numbers can divide each other without leaving remainders.
-            for (int i = 0; i < size(); i++) {
-                for (int j = 0; j < size(); j++) {
-                    int x = get(i).getFinalSolutionNumber();
-                    int y = get(j).getFinalSolutionNumber();
-                    //check if the remainder is zero and that the number is not the same.
-                    //TODO: check all division combinations
-
-                    try {
-                        if (x%y == 0 && (x%y)%divisionQuotient == 0){
-                            //pair is divisible, save to test with the next value and skip the for loop.
-                            divisionQuotient = x/y/divisionQuotient;
-                            break;
-                        }
-                    } catch (ArithmeticException e) {
-                        System.out.println(x);
-                        System.out.println(y);
-                        System.out.println(divisionQuotient);
-                    }                    
-                }
-            }
-            */
-
-            //check that the divisonQuotient has actually changed.
-            if (divisionQuotient != 1){
-                division = true;
-                //divison solution is divisionQuotient.
-                divisionSolution = divisionQuotient;
-            } else {
-                division = false;
-            }
-
-            
-            //now decide what sign to use.
-            while (true){
-                int signNum = rand.nextInt(4);
-                if (signNum == 0){
-                    int sum = 0;
-                    for (MathDokuCell mathDokuCell : MathDokuCage.this) {
-                        sum += mathDokuCell.getFinalSolutionNumber();
-                    }
-                    targetNumber = sum;
-                    sign = "+";
-                    break;
-                } else if (signNum == 1){
-
-                    ArrayList<Integer> list = new ArrayList<Integer>();
-                    //sort low to high first (for this can be any order). Does not prevent negative targets.
-                    for (MathDokuCell mathDokuCell : this){
-                        list.add(mathDokuCell.getFinalSolutionNumber());
-                    }
-                    list.sort(null); //low to high.
-                    //then check subtraction.
-                    for (Integer integer : list) {
-                        targetNumber = integer-targetNumber;
-                    }
-                    
-                    sign = "-";
-                    break;
-                } else if (signNum == 2){
-                    int sum = 1;
-                    for (MathDokuCell mathDokuCell : MathDokuCage.this) {
-                        sum = sum * mathDokuCell.getFinalSolutionNumber();
-                    }
-                    targetNumber = sum;
-                    sign = "x";
-                    break;
-                } 
-                //division is the only sign that sometimes cannot be used.
-                else if (signNum == 3 && division){
-                    targetNumber = divisionSolution;
-                    sign = "÷";
-                    break;
-                }
+    public boolean checkMathsSolutions(){
+        for (int i = 0; i < size(); i++){
+            values[i] = get(i).getPossibleSolutionNumber();
+            if (values[i] == 0){
+                //not finished solving yet so return true;
+                return true;
             }
-            
-            //TODO: check that the sign can be used, if it cant then regenerate the random number and try again.
         }
+
+        return operator.matches(values, size(), targetNumber);
     }
 
     /**
@@ -323,7 +140,7 @@ public class MathDokuCage extends ArrayList<MathDokuCell>{
             return "";
         } else {
             display = true;
-            return targetNumber + sign;
+            return targetNumber + operator.getSymbol();
         }
     }
 }
\ No newline at end of file
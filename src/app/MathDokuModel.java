@@ -1,14 +1,22 @@
 package app;
 
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Random;
-import java.util.Set;
-import java.util.Stack;
 
+import app.generator.GeneratedPuzzle;
+import app.generator.Generator;
+import app.puzzle.Puzzle;
+import app.puzzle.PuzzleParseException;
+import app.puzzle.PuzzleParser;
+import app.solver.Solver;
+
+import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleDoubleProperty;
+import javafx.concurrent.Task;
 import javafx.scene.paint.Color;
 
 /**
@@ -17,15 +25,38 @@ import javafx.scene.paint.Color;
  * @author Theo Levison
  */
 public class MathDokuModel {
+    /**
+     * How many edits can be undone, unless changed with setUndoLimit.
+     */
+    public static final int DEFAULT_UNDO_LIMIT = 10000;
+
+    private static final Logger LOGGER = System.getLogger(MathDokuModel.class.getName());
+
     private MathDokuCell prevCell;
     private MathDokuCell currentCell;
     private int gridDimensions;
     private MathDokuCell[][] grid;
     private ArrayList<MathDokuCage> cages = new ArrayList<MathDokuCage>();
-    public Stack<MathDokuCell> undoStack = new Stack<MathDokuCell>();
-    public Stack<MathDokuCell> redoStack = new Stack<MathDokuCell>();
+    // every number entered, for undo and redo.
+    private EditLog editLog = new EditLog(DEFAULT_UNDO_LIMIT);
+    private final EditLog.Applier undoApplier = (index, number) -> getCell(index % gridDimensions,
+            index / gridDimensions).setNumber(number);
     private MathDoku mathDoku;
     private Boolean highlight = false;
+    private BooleanProperty win = new SimpleBooleanProperty(false);
+    public final boolean isWin(){return win.get();}
+    public final void setWin(boolean value){win.set(value);}
+    public BooleanProperty winProperty() {return win;}
+    private boolean uniqueSolution = false;
+    // how many times each number is in every row and column, [line][number], so an edit only looks at its own
+    // row and column. rowDuplicates counts the numbers in a row that are there more than once.
+    private int[][] rowCounts;
+    private int[][] columnCounts;
+    private int[] rowDuplicates;
+    private int[] columnDuplicates;
+    private int conflictLines;
+    private int filledCells;
+    private int wrongCages;
 
     /**
      * Constructor, reference to mathDoku required for undo/redo.
@@ -39,8 +70,18 @@ public class MathDokuModel {
         this.mathDoku = mathDoku;
     }
 
+    /**
+     * Turns showing mistakes on or off, rehighlighting every cell.
+     * 
+     * @param highlight Whether or not to highlight mistakes.
+     */
     public void setHighlight(Boolean highlight) {
         this.highlight = highlight;
+        for (int i = 0; i < gridDimensions; i++) {
+            for (int j = 0; j < gridDimensions; j++) {
+                refreshHighlight(grid[i][j]);
+            }
+        }
     }
 
     public Boolean getHighlight() {
@@ -48,32 +89,40 @@ public class MathDokuModel {
     }
 
     /**
-     * Disables undo and redo buttons if their respective stacks are empty,
+     * @param uniqueSolution Whether generated grids must have exactly one solution.
+     */
+    public void setUniqueSolution(boolean uniqueSolution) {
+        this.uniqueSolution = uniqueSolution;
+    }
+
+    /**
+     * Disables undo and redo buttons if there is nothing to undo or redo,
      * otherwise enables them.
      */
     public void toggleUndoRedo() {
-        mathDoku.enableDisableUndo(undoStack.empty());
-        mathDoku.enableDisableRedo(redoStack.empty());
+        mathDoku.enableDisableUndo(!editLog.canUndo());
+        mathDoku.enableDisableRedo(!editLog.canRedo());
     }
 
     /**
-     * Pushes a cell to the redo stack.
+     * Changes how many edits can be undone, forgetting the edits so far.
      * 
-     * @param cell Cell to add to the redo stack.
+     * @param limit The most edits to remember.
      */
-    public void pushToRedoStack(MathDokuCell cell) {
-        redoStack.push(cell);
-        System.out.println("added to redo stack");
+    public void setUndoLimit(int limit) {
+        editLog = new EditLog(limit);
     }
 
     /**
-     * Pushes a cell to the undo stack.
+     * Records a number entered into a cell, so it can be undone.
      * 
-     * @param cell Cell to add to the undo stack.
+     * @param cell      The cell.
+     * @param oldNumber The number it had, or EMPTY.
+     * @param newNumber The number it was given, or EMPTY.
      */
-    public void pushToUndoStack(MathDokuCell cell) {
-        undoStack.push(cell);
-        System.out.println("added to undo stack");
+    void recordEdit(MathDokuCell cell, int oldNumber, int newNumber) {
+        editLog.record(cell.getIndex(), oldNumber, newNumber);
+        LOGGER.log(Level.TRACE, "Recorded an edit");
     }
 
     /**
@@ -84,26 +133,51 @@ public class MathDokuModel {
     }
 
     /**
-     * Sets up the matrix to store references to all the cells in, sets
-     * gridDimensions variable.
+     * Sets up the matrix of cells for a new game, sets gridDimensions variable.
+     * <p>
+     * If the last game was the same size its cells are reset and kept, so
+     * they can be drawn by the same board, otherwise new cells are made.
      * 
      * @param gridDimensions The grid dimensions
      */
     public void setGridDimensions(int gridDimensions) {
         this.gridDimensions = gridDimensions;
-        grid = new MathDokuCell[gridDimensions][gridDimensions];
+        if (grid == null || grid.length != gridDimensions) {
+            grid = new MathDokuCell[gridDimensions][gridDimensions];
+            for (int i = 0; i < gridDimensions; i++) {
+                for (int j = 0; j < gridDimensions; j++) {
+                    addCell(new MathDokuCell(this), i, j);
+                }
+            }
+        } else {
+            for (int i = 0; i < gridDimensions; i++) {
+                for (int j = 0; j < gridDimensions; j++) {
+                    grid[i][j].reset();
+                }
+            }
+        }
+        cages.clear();
+        editLog.clear();
+        currentCell = null;
+        prevCell = null;
+        win.set(false);
+
+        // the new cells are all empty, and numbers go up to the dimensions.
+        rowCounts = new int[gridDimensions][gridDimensions + 1];
+        columnCounts = new int[gridDimensions][gridDimensions + 1];
+        rowDuplicates = new int[gridDimensions];
+        columnDuplicates = new int[gridDimensions];
+        conflictLines = 0;
+        filledCells = 0;
+        wrongCages = 0;
     }
 
     /**
      * Returns the currently selected cell.
-     * <p>
-     * Adds the cell to the undo stack, as the only time this method is called is
-     * when operations are being done on the cell.
      * 
      * @return The currently selected cell.
      */
     public MathDokuCell getCurrentCell() {
-        //pushToUndoStack(currentCell);
         return this.currentCell;
     }
 
@@ -142,78 +216,60 @@ public class MathDokuModel {
         this.prevCell = prevCell;
     }
 
-    // TODO: generate solution from this so that in the future auto complete works
     /**
-     * Creates the grid from an List generated from loading a save.
+     * Creates the grid from a loaded save.
      * <p>
      * Takes the save data and generates a grid from it, allows users to play the
-     * same game again and share games with others.
+     * same game again and share games with others. Only single cages have a
+     * solution until one from {@link #createSolveTask()} is shown.
      * 
-     * @param list A list of save data
+     * @param puzzle The puzzle read from the save.
      */
-    public void generateFromList(List<String> list) {
-        for (String line : list) {
-            String[] array1 = line.split(" ");
-            String[] targetArray = array1[0].split("");
-            String[] numberArray = array1[1].split(",");
-
-            String targetNumber = "";
-            String sign = "";
-            if (targetArray.length == 1){
-                targetNumber = targetArray[0];
-            } else {    
-                for (int i = 0; i < targetArray.length - 1; i++) {
-                    targetNumber += targetArray[i];
-                }
-                sign = targetArray[targetArray.length - 1];
-            }
-
-            
+    public void loadPuzzle(Puzzle puzzle) {
+        showCages(puzzle);
 
-            MathDokuCage cage = new MathDokuCage();
-
-            // add cells to cage
-            for (int i = 0; i < numberArray.length; i++) {
-                Integer num = Integer.parseInt(numberArray[i]);
-                Integer x = num % gridDimensions == 0 ? gridDimensions - 1 : num % gridDimensions - 1;
-                Integer y = (num - 1) / gridDimensions;
-                cage.addCell(grid[x][y]);
-            }
-
-            //set FinalNumber if cage has only one possible solution
+        //set FinalNumber if cage has only one possible solution
+        for (MathDokuCage cage : cages) {
             if (cage.size() == 1){
-                cage.get(0).setFinalSolutionNumber(Integer.parseInt(targetNumber));
+                cage.get(0).setFinalSolutionNumber(cage.getTargetNumber());
             }
-
-            cage.setTargetNumber(Integer.parseInt(targetNumber), sign);
-            cages.add(cage);
         }
+    }
 
-        drawCages();
-        solve(false);
+    /**
+     * Loads one of the saves built into the game.
+     * 
+     * @param lines The cages of the save, one per line.
+     */
+    private void loadSave(String... lines) {
+        try {
+            loadPuzzle(PuzzleParser.parse(String.join("\n", lines)));
+        } catch (PuzzleParseException e) {
+            throw new IllegalStateException("Built in save is invalid", e);
+        }
     }
 
     /**
      * Generates a default grid if no other options are selected.
      */
     public void generateDefault2Grid() {
-        generateFromList(new ArrayList<String>(List.of(
+        loadSave(
         "3+ 1,3",
         "3+ 2,4"
-        )));
+        );
     }
 
     /**
      * Generates a default grid if no other options are selected.
      */
     public void generateDefault3Grid() {
-        generateFromList(new ArrayList<String>(List.of(
+        loadSave(
         "2 1",
         "4+ 3,2",
         "6+ 4,5,6",
         "1 7",
         "5+ 8,9"
-        )));
+        );
     }
 
     // TOOD: replace with loading from list
@@ -221,7 +277,7 @@ public class MathDokuModel {
      * Generates a default grid if no other options are selected.
      */
     public void generateDefault6Grid() {
-        generateFromList(new ArrayList<String>(List.of(
+        loadSave(
         "11+ 1,7",
         "2÷ 2,3",
         "20x 4,10",
@@ -237,222 +293,105 @@ public class MathDokuModel {
         "9+ 30,36",
         "8+ 31,32,33",
         "2÷ 34,35"
-        )));
+        );
     }
 
     /**
-     * Undoes the last operation.
+     * Undoes the last operation, all of it if it changed more than one cell.
      */
     public void undo() {
-        undoStack.pop().undo();
+        editLog.undo(undoApplier);
+        toggleUndoRedo();
     }
 
     /**
      * Redoes the last undone operation.
      */
     public void redo() {
-        redoStack.pop().redo();
+        editLog.redo(undoApplier);
+        toggleUndoRedo();
     }
 
     /**
-     * Resets the grid and game back to when the grid was loaded.
+     * Empties every cell, as one operation that can be undone.
      */
     public void clearAllCells() {
+        editLog.beginGroup();
         for (int i = 0; i < gridDimensions; i++) {
             for (int j = 0; j < gridDimensions; j++) {
-                grid[i][j].clearCell();
+                grid[i][j].enterNumber(MathDokuCell.EMPTY, true);
             }
         }
-        redoStack.clear();
-        undoStack.clear();
+        editLog.endGroup();
         toggleUndoRedo();
     }
 
     /**
-     * Pseudorandomly creates cages, then generates a sodoku solution, then
-     * generates target numbers in the cages, turning it into mathdoku.
+     * Makes a task that creates a new random grid with the headless generator,
+     * to be run away from the JavaFX thread.
+     * <p>
+     * If a unique solution is required, the generator keeps reshaping the
+     * cages until only one solution is left. Cancelling the task interrupts
+     * the generator, which then gives up.
+     *
+     * @return The task, its value is the puzzle to show with loadGenerated.
      */
-    public void generateNewGrid() {
-
-        // In the unlikely event that there are two single cells with the same number,
-        // start the grid generation process over again
-        System.out.println("\nnew attempt\n");
-        cages.clear();
-
-        for (int i = 0; i < gridDimensions; i++) {
-            for (int j = 0; j < gridDimensions; j++) {
-                MathDokuCell cell = grid[i][j];
-                cell.setPossibleSolutionNumber(0);
-                cell.setFinalSolutionNumber(0);
-                cell.getPossibleSolutionList().reset();
+    public Task<GeneratedPuzzle> createGenerateTask() {
+        // read the settings now, the task can't touch the model.
+        Generator generator = new Generator(gridDimensions);
+        generator.setUniqueSolution(uniqueSolution);
+        return new Task<GeneratedPuzzle>() {
+            @Override
+            protected GeneratedPuzzle call() {
+                return generator.generate();
             }
-        }
+        };
+    }
 
-        generateCages();
-        // decide solution first before drawing and setting target numbers
-        // fill single cages to make layout more random and not symmetrical
+    /**
+     * Replaces the cages on the grid with a generated puzzle.
+     *
+     * @param generated The puzzle and its solution.
+     */
+    public void loadGenerated(GeneratedPuzzle generated) {
+        showCages(generated.getPuzzle());
 
-        for (MathDokuCage mathDokuCage : cages) {
-            mathDokuCage.fillSingleCages(gridDimensions);
-        }
-        
-        //!checkSolutions()
-        // have to do this to reset highlighting etc after using checkSolutions()
-        /*
+        int[] solution = generated.getSolution();
         for (int i = 0; i < gridDimensions; i++) {
             for (int j = 0; j < gridDimensions; j++) {
                 MathDokuCell cell = grid[i][j];
-                cell.setRowConflict(false);
-                cell.setColumnConflict(false);
+                cell.setFinalSolutionNumber(solution[cell.getIndex()]);
             }
         }
-        */
-        //check();
-
-        //generateGeneralSodoku();
-        if (!solve(false)){
-            generateNewGrid();
-            return;
-        }
-        
-
-        //now calculate maths targets
-        for (MathDokuCage mathDokuCage : cages) {
-            mathDokuCage.fillBigCages(gridDimensions);
-        }
-
-        drawCages();
     }
 
     /**
-     * Randomly generates a set of cages.
-     */
-    private void generateCages() {
-        Set<MathDokuCell> usedCellsSet = new HashSet<MathDokuCell>();
-
-        while (usedCellsSet.size() < gridDimensions * gridDimensions) {
-            // generate new cage from next available cell that isnt already in a cage.
-            MathDokuCage cage = createCage(usedCellsSet);
-            cages.add(cage);
-        }
-    }
-
-    /**
-     * Generate a single cage from unused cells, restricting it's minimum and
-     * maximum size.
-     * 
-     * @param usedCellSet The set of cells that have already been used.
-     * @return A MathDokuCage with cells in a valid configuration.
+     * Replaces the cages on the grid with the cages of a puzzle, and forgets any solution.
+     *
+     * @param puzzle The puzzle.
      */
-    private MathDokuCage createCage(Set<MathDokuCell> usedCellsSet) {
-
-        Random rand = new Random();
-        int maximumCells = gridDimensions * gridDimensions;
-        int numberToAdd;
-
-        do {
-            // restrict maximum size of cage to 6 and prevent it being 0.
-            numberToAdd = rand.nextInt(6);
-            // regenerate to reduce the probability of single cages to 1/36, in reality it's
-            // higher.
-            if (numberToAdd == 1) {
-                numberToAdd = rand.nextInt(6);
-            }
-        } while (numberToAdd == 0);
-
-        // if there are only a few cells left, use those.
-        if ((usedCellsSet.size() + numberToAdd) > maximumCells) {
-            numberToAdd = maximumCells - usedCellsSet.size();
-        }
-
-        // System.out.println("\nnumber to add: " + numberToAdd);
+    private void showCages(Puzzle puzzle) {
+        cages.clear();
 
         for (int i = 0; i < gridDimensions; i++) {
             for (int j = 0; j < gridDimensions; j++) {
-
-                // if the cell is not in a cage, begin a cage from this cell.
-                if (!usedCellsSet.contains(grid[i][j])) {
-
-                    Set<MathDokuCell> cellsToAddToCage = generateCageSet(numberToAdd, usedCellsSet,
-                            new HashSet<MathDokuCell>(), i, j);
-                    System.out.println(cellsToAddToCage.size());
-
-                    // once the set has been generated, create a cage with the cells in the set.
-                    MathDokuCage cage = new MathDokuCage();
-                    for (MathDokuCell mathDokuCell : cellsToAddToCage) {
-                        cage.addCell(mathDokuCell);
-                    }
-                    return cage;
-                }
+                MathDokuCell cell = grid[i][j];
+                cell.setPossibleSolutionNumber(0);
+                cell.setFinalSolutionNumber(0);
+                cell.getPossibleSolutionList().reset();
             }
         }
 
-        // should never be reached
-        return new MathDokuCage();
-    }
-
-    /**
-     * Recursively generates a set of adjacent cells without an existing cage.
-     * <p>
-     * The first cell is always unused, so that is successfully added to the cage,
-     * guaranteeing at least one cell in the cage. There is a 60% chance to branch
-     * in each direction to create a random pattern of cells.
-     * 
-     * @param numberToAdd      The amount of cells that this cage should contain.
-     * @param usedCellsSet     The set of cells that have already been used.
-     * @param cellsToAddToCage The set of cells that will eventually become the
-     *                         cage.
-     * @param i                The x coordinate that is used to find a new cell.
-     * @param j                The y coordinate that is used to find a new cell.
-     * @return A set of cells in the cage.
-     */
-    private Set<MathDokuCell> generateCageSet(Integer numberToAdd, Set<MathDokuCell> usedCellsSet,
-            Set<MathDokuCell> cellsToAddToCage, int i, int j) {
-
-        Random rand = new Random();
-        MathDokuCell cell;
-
-        try {
-            cell = grid[i][j];
-        } catch (IndexOutOfBoundsException e) {
-            // can't add to cage because the grid border has been hit, to stop this
-            // happening forever, take 1 from numberToAdd.
-            numberToAdd--;
-            return cellsToAddToCage;
-        }
-
-        if (numberToAdd <= cellsToAddToCage.size() || usedCellsSet.contains(cell)) {
-            return cellsToAddToCage;
-        } else {
-            // add this cell to the cage.
-            usedCellsSet.add(cell);
-            cellsToAddToCage.add(cell);
-
-            // find neighbours, call addToCage on those.
-            // to create cages with interesting shapes, give a 60% chance to progress in
-            // each direction.
-
-            if (rand.nextInt(10) < 6) {
-                // try above
-                cellsToAddToCage.addAll(generateCageSet(numberToAdd, usedCellsSet, cellsToAddToCage, i, j - 1));
-            }
-
-            if (rand.nextInt(10) < 6) {
-                // try below
-                cellsToAddToCage.addAll(generateCageSet(numberToAdd, usedCellsSet, cellsToAddToCage, i, j + 1));
-            }
-
-            if (rand.nextInt(10) < 6) {
-                // try left
-                cellsToAddToCage.addAll(generateCageSet(numberToAdd, usedCellsSet, cellsToAddToCage, i - 1, j));
-            }
-
-            if (rand.nextInt(10) < 6) {
-                // try right
-                cellsToAddToCage.addAll(generateCageSet(numberToAdd, usedCellsSet, cellsToAddToCage, i + 1, j));
+        for (int i = 0; i < puzzle.getCageCount(); i++) {
+            MathDokuCage cage = new MathDokuCage();
+            for (int index : puzzle.getCageCells(i)) {
+                cage.addCell(grid[index % gridDimensions][index / gridDimensions]);
             }
+            cage.setTargetNumber(puzzle.getTarget(i), puzzle.getOperator(i));
+            cages.add(cage);
         }
-        return cellsToAddToCage;
+
+        drawCages();
     }
 
     /**
@@ -507,6 +446,15 @@ public class MathDokuModel {
         }
     }
 
+    /**
+     * @param x X index.
+     * @param y Y index.
+     * @return The cell at that place in the grid.
+     */
+    public MathDokuCell getCell(int x, int y) {
+        return grid[x][y];
+    }
+
     /**
      * Add cell to matrix.
      * 
@@ -516,119 +464,126 @@ public class MathDokuModel {
      */
     public void addCell(MathDokuCell cell, int x, int y) {
         grid[x][y] = cell;
+        cell.setIndex(y * gridDimensions + x);
     }
 
     /**
-     * Checks if the cage's math's rules are being followed.
+     * Updates the checks after the number in a cell has changed.
+     * <p>
+     * Only the cell's row, column and cage can have changed, so only they are looked at and only their cells are
+     * rehighlighted, instead of checking the whole grid again.
      * 
-     * @param highlight Whether or not to highlight the cells.
-     * @return If the maths is correct.
+     * @param cell      The cell that changed.
+     * @param oldNumber The number it was showing before, or EMPTY.
+     * @param newNumber The number it is showing now, or EMPTY.
+     * @return If the grid is now filled in with no mistakes.
      */
-    public boolean checkMaths() {
-        boolean check = true;
+    public boolean cellChanged(MathDokuCell cell, int oldNumber, int newNumber) {
+        int x = cell.getIndex() % gridDimensions;
+        int y = cell.getIndex() / gridDimensions;
 
-        for (MathDokuCage mathDokuCage : cages) {
-            if (!mathDokuCage.checkMaths(highlight)) {
-                check = false;
+        count(x, y, oldNumber, -1);
+        count(x, y, newNumber, 1);
+
+        MathDokuCage cage = cell.getCage();
+        if (cage != null) {
+            boolean wrong = !cage.checkMaths(false);
+            if (wrong != cage.isWrong()) {
+                cage.setWrong(wrong);
+                wrongCages += wrong ? 1 : -1;
             }
+            for (MathDokuCell cageCell : cage) {
+                refreshHighlight(cageCell);
+            }
+        }
+        for (int k = 0; k < gridDimensions; k++) {
+            refreshHighlight(grid[k][y]);
+            refreshHighlight(grid[x][k]);
         }
 
-        return check;
+        return check() && checkMaths() && checkAllCellsFilled();
+    }
+
+    /**
+     * Adds or removes a number from the counts for its row and column.
+     * 
+     * @param x      The column.
+     * @param y      The row.
+     * @param number The number, EMPTY isn't counted.
+     * @param change 1 to add the number, -1 to remove it.
+     */
+    private void count(int x, int y, int number, int change) {
+        if (number == MathDokuCell.EMPTY) {
+            return;
+        }
+        filledCells += change;
+
+        // a number becomes a duplicate going from 1 to 2, and stops being one going from 2 to 1.
+        int before = rowCounts[y][number];
+        rowCounts[y][number] += change;
+        if (Math.max(before, rowCounts[y][number]) == 2) {
+            conflictLines -= rowDuplicates[y] > 0 ? 1 : 0;
+            rowDuplicates[y] += change;
+            conflictLines += rowDuplicates[y] > 0 ? 1 : 0;
+        }
+
+        before = columnCounts[x][number];
+        columnCounts[x][number] += change;
+        if (Math.max(before, columnCounts[x][number]) == 2) {
+            conflictLines -= columnDuplicates[x] > 0 ? 1 : 0;
+            columnDuplicates[x] += change;
+            conflictLines += columnDuplicates[x] > 0 ? 1 : 0;
+        }
+    }
+
+    /**
+     * Sets a cell's conflicts from the counts for its row and column, and highlights it if mistakes are being shown.
+     * <p>
+     * Cages that don't add up are highlighted over row and column conflicts.
+     * 
+     * @param cell The cell to update.
+     */
+    private void refreshHighlight(MathDokuCell cell) {
+        int x = cell.getIndex() % gridDimensions;
+        int y = cell.getIndex() / gridDimensions;
+        cell.setRowConflict(rowDuplicates[y] > 0);
+        cell.setColumnConflict(columnDuplicates[x] > 0);
+
+        if (highlight && cell.getCage() != null && cell.getCage().isWrong()) {
+            cell.highlight(Color.ORANGE);
+        } else if (highlight && cell.hasConflict()) {
+            cell.highlight(Color.RED);
+        } else {
+            cell.highlight(Color.GREY);
+        }
+    }
+
+    /**
+     * Checks if the cage's math's rules are being followed.
+     * 
+     * @return If the maths is correct.
+     */
+    public boolean checkMaths() {
+        return wrongCages == 0;
     }
 
     /**
      * @return If the cells are filled
      */
     public boolean checkAllCellsFilled() {
-        for (int i = 0; i < gridDimensions; i++) {
-            for (int j = 0; j < gridDimensions; j++) {
-                if (grid[i][j].getNumber() == "") {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return filledCells == gridDimensions * gridDimensions;
     }
 
-    // TODO: see if this can be made more elegant/efficient/use of the same code in
-    // both parts/do all highlighting at the end? (idk if that would actually
-    // improve performance or make it worse)
     /**
      * Checks the user's answers for row and column conflicts according to sudoku
      * rules.
      * 
-     * @param highlight Whether or not to highlight the cells according to the
-     *                  user's decision.
      * @return True if there are no conflicts.
      */
     public boolean check() {
-        // have to initalise these to make the compiler stop complaining
-        boolean noColumnConflict = false;
-        boolean noRowConflict = false;
-        boolean globalFlag = true;
-
-        for (int i = 0; i < gridDimensions; i++) {
-            Set<Integer> columnSet = new HashSet<Integer>();
-            Set<Integer> rowSet = new HashSet<Integer>();
-            noColumnConflict = true;
-            noRowConflict = true;
-            for (int j = 0; j < gridDimensions; j++) {
-
-                // attempt to add number to columnSet, if there is a conflict then highlight the column.
-                try {
-                    if (!columnSet.add(Integer.parseInt(grid[i][j].getNumber()))) {
-                        for (int k = 0; k < gridDimensions; k++) {
-                            if (highlight) {
-                                grid[i][k].highlight(Color.RED);
-                            }
-                            grid[i][k].setColumnConflict(true);
-                            noColumnConflict = false;
-                            globalFlag = false;
-                        }
-                        // only need to find the first conflict to highlight it, so move to the next column.
-                    } else if (noColumnConflict) {
-                        // if everything is correct unhighlight.
-                        for (int k = 0; k < gridDimensions; k++) {
-                            grid[i][k].setColumnConflict(false);
-                            if (!grid[i][k].hasConflict()) {
-                                grid[i][k].highlight(Color.GREY);
-                            }
-                        }
-                    }
-                } catch (NumberFormatException e) {
-                    // Not all cells filled in so error thrown and caught.
-                }
-
-                // attempt to add number to rowSet, if there is a conflict then highlight the row.
-                try {
-                    if (!rowSet.add(Integer.parseInt(grid[j][i].getNumber()))) {
-                        for (int k = 0; k < gridDimensions; k++) {
-                            if (highlight) {
-                                grid[k][i].highlight(Color.RED);
-                            }
-                            grid[k][i].setRowConflict(true);
-                            noRowConflict = false;
-                            globalFlag = false;
-                        }
-                        // only need to find the first conflict to highlight it, so move to the next row.
-                    } else if (noRowConflict) {
-                        // if everything is correct unhighlight.
-                        for (int k = 0; k < gridDimensions; k++) {
-                            grid[k][i].setRowConflict(false);
-                            if (!grid[k][i].hasConflict()) {
-                                grid[k][i].highlight(Color.GREY);
-                            }
-                        }
-                    }
-                } catch (NumberFormatException e) {
-                    // Not all cells filled in so error thrown and caught.
-                }
-            }
-        }
-        return globalFlag;
+        return conflictLines == 0;
     }
 
-
     /**
      * Checks if the cage's math's rules are being followed when auto solving.
      * 
@@ -646,61 +601,6 @@ public class MathDokuModel {
         return check;
     }
 
-    // TODO: idk try to merge with above, not likely to happen tbh
-    /**
-     * Checks the solution numbers for row and column conflicts according to sudoku rules, does not highlight.
-     * 
-     * @return True there are no conflicts.
-     */
-    public boolean checkSolutions() {
-        // have to initalise these to make the compiler stop complaining.
-        boolean noColumnConflict = false;
-        boolean noRowConflict = false;
-        boolean globalFlag = true;
-
-        for (int i = 0; i < gridDimensions; i++) {
-            Set<Integer> columnSet = new HashSet<Integer>();
-            Set<Integer> rowSet = new HashSet<Integer>();
-            noColumnConflict = true;
-            noRowConflict = true;
-            for (int j = 0; j < gridDimensions; j++) {
-                //ignore cells without a solution
-                if (grid[i][j].getPossibleSolutionNumber() != 0){
-                // attempt to add number to columnSet, check if there is a conflict.
-                    if (!columnSet.add(grid[i][j].getPossibleSolutionNumber())) {
-                        for (int k = 0; k < gridDimensions; k++) {
-                            grid[i][k].setColumnConflict(true);
-                            noColumnConflict = false;
-                            globalFlag = false;
-                        }
-                        // only need to find the first conflict, so move to the next column.
-                    } else if (noColumnConflict) {
-                        // everything is correct.
-                        for (int k = 0; k < gridDimensions; k++) {
-                            grid[i][k].setColumnConflict(false);
-                        }
-                    }
-
-                // attempt to add number to rowSet, check if there is a conflict.
-                    if (!rowSet.add(grid[j][i].getPossibleSolutionNumber())) {
-                        for (int k = 0; k < gridDimensions; k++) {
-                            grid[k][i].setRowConflict(true);
-                            noRowConflict = false;
-                            globalFlag = false;
-                        }
-                        // only need to find the first conflict, so move to the next row.
-                    } else if (noRowConflict) {
-                        // everything is correct.
-                        for (int k = 0; k < gridDimensions; k++) {
-                            grid[k][i].setRowConflict(false);
-                        }
-                    }
-                }
-            }
-        }
-        return globalFlag;
-    }
-
     public void hint() {
         int hintCount = 0;
         Random rand = new Random();
@@ -710,376 +610,96 @@ public class MathDokuModel {
         do {
             cell = grid[rand.nextInt(gridDimensions)][rand.nextInt(gridDimensions)];
             hintCount++;
-        } while (cell.getNumber() != "" && hintCount <= gridDimensions*gridDimensions);
+        } while (cell.getNumber() != MathDokuCell.EMPTY && hintCount <= gridDimensions*gridDimensions);
 
         //randomly reveal a cell's solution.
-        pushToUndoStack(cell);
-        cell.updateNumber(String.valueOf(cell.getPossibleSolutionNumber()), false);
+        cell.enterNumber(cell.getPossibleSolutionNumber(), true);
     }
 
-    public boolean solve(boolean fill) {
-        // check for single cells.
-        for (int i = 0; i < gridDimensions; i++) {
-            for (int j = 0; j < gridDimensions; j++) {
-                if (grid[i][j].getFinalSolutionNumber() != 0) {
-                    System.out.println("found a single");
-                    // eliminate that number from other cell's possibility sets in the same
-                    // row/column.
-                    for (int k = 0; k < gridDimensions; k++) {
-                        if (k != j){
-                            //column.
-                            grid[i][k].getPossibleSolutionList().remove(grid[i][j].getFinalSolutionNumber(), 0);
-                        }
-                        if (k != i){
-                            //row.
-                            grid[k][j].getPossibleSolutionList().remove(grid[i][j].getFinalSolutionNumber(), 0);
-                        }
-                    }
-                }
-            }
-        }
-
-        // now start recursively finding a solution.
-        // start in top left.
-        if (solveRecursively(0, 0)) {
-            // solution has been found
-
-            for (int i = 0; i < gridDimensions; i++) {
-                for (int j = 0; j < gridDimensions; j++) {
-                    MathDokuCell cell = grid[i][j];
-                    // TODO: decide if I should bother updating this
-                    // cell.setAbsoluteSolutionList(cell.getPossibleSolutionList());
-                    cell.setFinalSolutionNumber(cell.getPossibleSolutionNumber());
-                    //TODO: enable below if not generating game with this
-                    if (fill){
-                        cell.updateNumber(Integer.toString(cell.getFinalSolutionNumber()), false);
-                    }
-                    //cell.updateNumber(Integer.toString(cell.getFinalSolutionNumber()));
-                }
-            }
-            System.out.println("Puzzle has been solved");
-            return true;
-        } else {
-            return false;
-        }
+    /**
+     * Makes a task that finds a solution to the grid using the solver, to be
+     * run away from the JavaFX thread.
+     * <p>
+     * The cages are read now, so the grid can keep changing while the task
+     * runs. Cancelling the task interrupts the solver, which then gives up.
+     * Cages without a target yet only have to follow the row and column rules.
+     *
+     * @return The task, its value is the solution to show with showSolution,
+     * or null if there isn't one.
+     */
+    public Task<int[]> createSolveTask() {
+        return createSolveTask(0);
     }
 
-    private boolean solveRecursively(int i, int j) {
-        MathDokuCell cell = grid[i][j];
-
-        
-        if (i == 0 && j == 0 && cell.getPossibleSolutionList().isEmpty()){
-            System.out.println("Failed miserably");
-        }
-
-        // if solution is known, use that.
-        if (cell.getFinalSolutionNumber() != 0) {
-            cell.setPossibleSolutionNumber(cell.getFinalSolutionNumber());
-        } else {
-            // try the first option from the set.
-            // set should never be empty at this point fingers crossed.
-
-            
-            if (cell.getPossibleSolutionList().isEmpty()) {
-                // options exhausted before this cell could do anything, so the error is higher up.
-
-                System.out.println("Child has no prospects, go back once.");
-                return false;
-            }
-            
-
-            cell.setPossibleSolutionNumber(cell.getPossibleSolutionList().get());
-        }
-        //cell.updateNumber(String.valueOf(cell.getPossibleSolutionNumber()));
-
-
-        //eliminate that number from other cell's possibility sets in the same row/column.
-        //No arguments with parents, only try to delete from cells in front and below.
-        
-        for (int k = 0; k < gridDimensions; k++) {
-            if (k > j){
-                //column.
-                grid[i][k].getPossibleSolutionList().remove((Integer)cell.getPossibleSolutionNumber(), i+j*gridDimensions);
-            }
-            if (k > i){
-                //row.
-                grid[k][j].getPossibleSolutionList().remove((Integer)cell.getPossibleSolutionNumber(), i+j*gridDimensions);
-            }
-        }
-
-        boolean success = false;
-        
-        /*
-        if (checkMathsSolutions()){
-            */
-            if (i < gridDimensions - 1){
-                success = solveRecursively(i+1, j);
-            } else if (j < gridDimensions - 1){
-                success = solveRecursively(0, j+1);
-            } else {
-                //i = 5 and j =5
-                //to get to this point all sodoku rules should have been followed
-                success = checkSolutions();// && checkMathsSolutions();
-            }
-            /*
-        }
-        */
-
-        if (!success && cell.getFinalSolutionNumber() != 0){
-            //has only one possible value so error is before this
-            //this shouldnt have changed any values because that has already been done at the beginning
-
-            return false;
-
-        } else if (!success && !cell.getPossibleSolutionList().isEmpty()){
-            //error but more options available so remove this attempt and try those.
-
-            System.out.println("Disappointed parent, try to make more children.");
-            //try to restore unused option to other cells in the same row/column.
-
-            
-            //No sex with parents, only restore cells in front and below.
-            for (int k = 0; k < gridDimensions; k++) {
-                if (k > j){
-                    //column.
-                    grid[i][k].getPossibleSolutionList().add((Integer)cell.getPossibleSolutionNumber(), i+j*gridDimensions);
-                    //grid[i][k].setPossibleSolutionNumber(0);
-                }
-                if (k > i){
-                    //row.
-                    grid[k][j].getPossibleSolutionList().add((Integer)cell.getPossibleSolutionNumber(), i+j*gridDimensions);
-                    //grid[k][j].setPossibleSolutionNumber(0);
-                }
-            }
-            
-
-            cell.getPossibleSolutionList().remove((Integer)cell.getPossibleSolutionNumber(), i+j*gridDimensions);
-
-            return solveRecursively(i, j);
-
-        }
-        //TODO: remove this bit after I get maths checking working, I think it's redundant but I want to be sure.
-        else if (!success && cell.getPossibleSolutionList().isEmpty()) {
-            //options exhausted here so the error is higher up.
-            System.out.println("\n\n\nDisappointed parent and exhausted, go back once.\n\n\n");
-
-            //restore the last value used
-            for (int k = 0; k < gridDimensions; k++) {
-                if (k > j){
-                    //column.
-                    grid[i][k].getPossibleSolutionList().add((Integer)cell.getPossibleSolutionNumber(), i+j*gridDimensions);
-                    //grid[i][k].setPossibleSolutionNumber(0);
-                }
-                if (k > i){
-                    //row.
-                    grid[k][j].getPossibleSolutionList().add((Integer)cell.getPossibleSolutionNumber(), i+j*gridDimensions);
-                    //grid[k][j].setPossibleSolutionNumber(0);
+    /**
+     * Makes a task like {@link #createSolveTask()} that gives up after a time.
+     *
+     * @param timeoutMillis How long the solver can take, or 0 for as long as
+     * it needs.
+     * @return The task, its value is the solution or null if there isn't one
+     * or the time ran out.
+     */
+    public Task<int[]> createSolveTask(long timeoutMillis) {
+        Puzzle puzzle = toPuzzle();
+        return new Task<int[]>() {
+            @Override
+            protected int[] call() {
+                Solver solver = new Solver(puzzle);
+                if (timeoutMillis > 0) {
+                    solver.setDeadline(System.nanoTime() + timeoutMillis * 1000000L);
                 }
+                return solver.solve();
             }
-
-            return false;
-        }
-
-        //this branch was successful, but the overall attempt may not be, so go up.
-        System.out.println("Proud parent: go up");
-        return true;
+        };
     }
 
-
-
-
-
-
     /**
-     * 
-     * A solver that doesn't work yay!!!!
-     * 
-     * 
-     * 
+     * Stores a solution in the cells, all in one go.
+     * <p>
+     * Showing the solution is one operation that can be undone.
+     *
+     * @param solution The number in every cell, row by row, or null if there
+     * is no solution.
+     * @param fill Whether or not to show the solution to the user.
+     * @return If there was a solution.
      */
+    public boolean showSolution(int[] solution, boolean fill) {
+        if (solution == null) {
+            return false;
+        }
 
-    public boolean shitSolve() {
-        // check for single cells.
+        editLog.beginGroup();
         for (int i = 0; i < gridDimensions; i++) {
             for (int j = 0; j < gridDimensions; j++) {
-                if (grid[i][j].getFinalSolutionNumber() != 0) {
-                    System.out.println("found a single");
-                    // eliminate that number from other cell's possibility sets in the same
-                    // row/column.
-                    for (int k = 0; k < gridDimensions; k++) {
-                        if (k != j){
-                            //column.
-                            grid[i][k].getPossibleSolutionList().remove(grid[i][j].getFinalSolutionNumber(), 0);
-                        }
-                        if (k != i){
-                            //row.
-                            grid[k][j].getPossibleSolutionList().remove(grid[i][j].getFinalSolutionNumber(), 0);
-                        }
-                    }
+                MathDokuCell cell = grid[i][j];
+                cell.setFinalSolutionNumber(solution[cell.getIndex()]);
+                if (fill){
+                    cell.enterNumber(cell.getFinalSolutionNumber(), true);
                 }
             }
         }
-
-        // now start recursively finding a solution.
-        // start in top left.
-        if (shitSolveRecursively(0, 0)) {
-            // solution has been found
-
-            for (int i = 0; i < gridDimensions; i++) {
-                for (int j = 0; j < gridDimensions; j++) {
-                    MathDokuCell cell = grid[i][j];
-                    // TODO: decide if I should bother updating this
-                    // cell.setAbsoluteSolutionList(cell.getPossibleSolutionList());
-                    cell.setFinalSolutionNumber(cell.getPossibleSolutionNumber());
-                    //TODO: enable below if not generating game with this
-                    cell.updateNumber(Integer.toString(cell.getFinalSolutionNumber()), false);
-                }
-            }
-            System.out.println("Puzzle has been solved");
-            return true;
-        } else {
-            return false;
-        }
+        editLog.endGroup();
+        return true;
     }
 
-    private boolean shitSolveRecursively(int i, int j) {
-        MathDokuCell cell = grid[i][j];
-
-        
-        if (i == 0 && j == 0 && cell.getPossibleSolutionList().isEmpty()){
-            System.out.println("Failed miserably");
-        }
-
-        // if solution is known, use that.
-        if (cell.getFinalSolutionNumber() != 0) {
-            cell.setPossibleSolutionNumber(cell.getFinalSolutionNumber());
-        } else {
-            // try the first option from the set.
-            // set should never be empty at this point fingers crossed.
-
-            
-            if (cell.getPossibleSolutionList().isEmpty()) {
-                // options exhausted before this cell could do anything, so the error is higher up.
-
-                System.out.println("Child has no prospects, go back once.");
-                cell.setPossibleSolutionNumber(0);
-                return false;
-            }
-            
-
-            cell.setPossibleSolutionNumber(cell.getPossibleSolutionList().get());
-        }
-        //cell.updateNumber(String.valueOf(cell.getPossibleSolutionNumber()));
-
-
-        //eliminate that number from other cell's possibility sets in the same row/column.
-        //No arguments with parents, only try to delete from cells in front and below.
-        
-        for (int k = 0; k < gridDimensions; k++) {
-            if (k > j){
-                //column.
-                grid[i][k].getPossibleSolutionList().remove((Integer)cell.getPossibleSolutionNumber(), i+j*gridDimensions);
-            }
-            if (k > i){
-                //row.
-                grid[k][j].getPossibleSolutionList().remove((Integer)cell.getPossibleSolutionNumber(), i+j*gridDimensions);
-            }
-        }
-
-        boolean success = false;
-        
-        
-        if (checkMathsSolutions()){
-            if (i < gridDimensions - 1){
-                success = solveRecursively(i+1, j);
-            } else if (j < gridDimensions - 1){
-                success = solveRecursively(0, j+1);
-            } else {
-                //i = 5 and j =5
-                //to get to this point all sodoku rules should have been followed
-                success = checkSolutions();// && checkMathsSolutions();
-            }
-            
-        }
-        
-
-        if (!success && cell.getFinalSolutionNumber() != 0){
-            //has only one possible value so error is before this
-            //this shouldnt have changed any values because that has already been done at the beginning
-            cell.setPossibleSolutionNumber(0);
-            return false;
-
-        } else if (!success && !cell.getPossibleSolutionList().isEmpty()){
-            //error but more options available so remove this attempt and try those.
-
-            System.out.println("Disappointed parent, try to make more children.");
-            //try to restore unused option to other cells in the same row/column.
-
-            //TODO: restore child if they are below and before you
-            //No sex with parents, only restore cells in front and below.
-            for (int k = 0; k < gridDimensions; k++) {
-                if (k > j){
-                    //column.
-                    //grid[i][k].getPossibleSolutionList().add((Integer)cell.getPossibleSolutionNumber(), i+j*gridDimensions);
-                    //restore the childrens values as much as you can.
-                    for (int k2 = 1; k2 < gridDimensions+1; k2++) {
-                        grid[i][k].getPossibleSolutionList().add(k2, i+j*gridDimensions);
-                    }
-                }
-                if (k > i){
-                    //row.
-                    //grid[k][j].getPossibleSolutionList().add((Integer)cell.getPossibleSolutionNumber(), i+j*gridDimensions);
-                    //restore the childrens values as much as you can.
-                    for (int k2 = 1; k2 < gridDimensions+1; k2++) {
-                        grid[k][j].getPossibleSolutionList().add(k2, i+j*gridDimensions);
-                    }
-                }
+    /**
+     * Describes the cages in the grid in a way the solver can use.
+     * 
+     * @return The puzzle the grid is showing.
+     */
+    private Puzzle toPuzzle() {
+        Puzzle.Builder puzzle = new Puzzle.Builder(gridDimensions);
+        for (MathDokuCage mathDokuCage : cages) {
+            if (mathDokuCage.getOperator() == null) {
+                // no target yet.
+                continue;
             }
-            
-
-            cell.getPossibleSolutionList().remove((Integer)cell.getPossibleSolutionNumber(), i+j*gridDimensions);
-
-            return solveRecursively(i, j);
-
-        }
-        //TODO: remove this bit after I get maths checking working, I think it's redundant but I want to be sure.
-        else if (!success && cell.getPossibleSolutionList().isEmpty()) {
-            //options exhausted here so the error is higher up.
-            System.out.println("\n\n\nDisappointed parent and exhausted, go back once.\n\n\n");
-
-            //restore the last value used
-            for (int k = 0; k < gridDimensions; k++) {
-                if (k > j){
-                    //column.
-                    //grid[i][k].getPossibleSolutionList().add((Integer)cell.getPossibleSolutionNumber(), i+j*gridDimensions);
-                    //restore the childrens values as much as you can.
-                    for (int k2 = 1; k2 < gridDimensions+1; k2++) {
-                        grid[i][k].getPossibleSolutionList().add(k2, i+j*gridDimensions);
-                    }
-                }
-                if (k > i){
-                    //row.
-                    //grid[k][j].getPossibleSolutionList().add((Integer)cell.getPossibleSolutionNumber(), i+j*gridDimensions);
-                    //restore the childrens values as much as you can.
-                    for (int k2 = 1; k2 < gridDimensions+1; k2++) {
-                        grid[k][j].getPossibleSolutionList().add(k2, i+j*gridDimensions);
-                    }
-                }
-                //restore your own values as much as you can.
-                cell.getPossibleSolutionList().add(k, i+j*gridDimensions);
+            int[] cells = new int[mathDokuCage.size()];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = mathDokuCage.get(i).getIndex();
             }
-
-            cell.setPossibleSolutionNumber(0);
-            
-
-            return false;
+            puzzle.addCage(mathDokuCage.getOperator(), mathDokuCage.getTargetNumber(), cells);
         }
-
-        //this branch was successful, but the overall attempt may not be, so go up.
-        System.out.println("Proud parent: go up");
-        return true;
+        return puzzle.build();
     }
-
-
-
 }
\ No newline at end of file
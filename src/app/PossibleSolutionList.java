@@ -1,71 +1,84 @@
 package app;
 
+import app.solver.Domains;
+
+/**
+ * The numbers a cell could still be, stored as a bitmask with bit v - 1 standing for the number v.
+ * <p>
+ * The solver keeps its own options in {@link Domains}, this is what a cell remembers between solves.
+ */
 public class PossibleSolutionList{
-    private Boolean[] numberEnabled;
-    private Integer[] priority;
+    private int numbers;
     private int gridDimensions;
 
-    public PossibleSolutionList(Integer gridDimensions){
+    public PossibleSolutionList(int gridDimensions){
         this.gridDimensions = gridDimensions;
-        priority = new Integer[gridDimensions];
-        numberEnabled = new Boolean[gridDimensions];
-        for (int i = 0; i < gridDimensions; i++) {
-            numberEnabled[i] = true;
-            priority[i] = gridDimensions*gridDimensions+1;
-        }
+        reset();
     }
 
-    public boolean add(Integer number, Integer priorityInt) {
-        if (priorityInt <= priority[number-1]){
-            numberEnabled[number-1] = true;
-            //TODO: without the below the priority system doesnt actually work ssoooooo
-            //priority[number-1] = priorityInt;
-            return true;
-        } else {
-            return false;
-        }   
+    /**
+     * @param number Number to allow again.
+     */
+    public void add(int number) {
+        numbers |= Domains.bit(number);
     }
 
-    public void setAbsoluteNumber(Integer number) {
-        for (int i = 0; i < numberEnabled.length; i++) {
-            numberEnabled[i] = false;
-        }
-        numberEnabled[number-1]=true;
+    /**
+     * Removes every number apart from one.
+     *
+     * @param number The only number the cell can be.
+     */
+    public void setAbsoluteNumber(int number) {
+        numbers = Domains.bit(number);
     }
 
-    public boolean remove(Integer number, Integer priorityInt) {
-        //if (priorityInt <= priority[number-1]){
-            numberEnabled[number-1] = false;
-            priority[number-1] = priorityInt;
-            return true;
-        /*} else {
-            return false;
-        } 
-        */
+    /**
+     * @param number Number to rule out.
+     */
+    public void remove(int number) {
+        numbers &= ~Domains.bit(number);
     }
 
-    public Integer get() {
-        for (int i = 0; i < numberEnabled.length; i++) {
-            if (numberEnabled[i]){
-                return i+1;
-            }
+    /**
+     * @param number The number to look for.
+     * @return If the cell could still be the number.
+     */
+    public boolean contains(int number) {
+        return (numbers & Domains.bit(number)) != 0;
+    }
+
+    /**
+     * @return The lowest number the cell could still be.
+     */
+    public int get() {
+        if (numbers == 0) {
+            throw new Error("No numbers enabled as solutions");
         }
-        throw new Error("No numbers enabled as solutions");
+        return Domains.lowestNumber(numbers);
+    }
+
+    /**
+     * @return How many numbers the cell could still be.
+     */
+    public int size() {
+        return Domains.count(numbers);
     }
 
     public boolean isEmpty(){
-        for (int i = 0; i < numberEnabled.length; i++) {
-            if (numberEnabled[i]){
-                return false;
-            }
-        }
-        return true;
+        return numbers == 0;
     }
 
+    /**
+     * @return Every number the cell could still be as a bitmask.
+     */
+    public int toMask() {
+        return numbers;
+    }
+
+    /**
+     * Allows every number in the grid again.
+     */
     public void reset() {
-        for (int i = 0; i < gridDimensions; i++) {
-            numberEnabled[i] = true;
-            priority[i] = gridDimensions*gridDimensions+1;
-        }
+        numbers = (1 << gridDimensions) - 1;
     }
-}
\ No newline at end of file
+}
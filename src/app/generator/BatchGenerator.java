@@ -0,0 +1,153 @@
+package app.generator;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Makes large batches of puzzles on every core.
+ * <p>
+ * The batch is made a window at a time. Each window is split in half recursively on a work stealing
+ * {@link ForkJoinPool} until the pieces are one chunk of {@link #LEAF_SIZE} puzzles, and every chunk runs its own
+ * {@link Generator}, so no generator is shared between threads. Once the whole window is made it is handed to
+ * the sink in order of index, on the thread that called generate, before the next window is started. A slow
+ * puzzle can hold up the rest of its window, but no more than a window of puzzles is ever held in memory,
+ * however big the batch.
+ * <p>
+ * Every chunk's randomness comes from the seed and the chunk's number alone, which makes the puzzle at every
+ * index the same for a given seed however many threads there are, and so however big the windows are, unless a
+ * generator hits its time limit.
+ */
+public class BatchGenerator {
+    // puzzles a task makes itself instead of splitting further.
+    private static final int LEAF_SIZE = 8;
+    // chunks in a window for every thread, so that threads which finish early still have chunks to take.
+    private static final int CHUNKS_PER_THREAD = 4;
+    // how many times a puzzle is tried again when the generator gives up on it.
+    private static final int MAX_RETRIES = 3;
+    // spreads the chunk numbers out over the seeds, an odd constant so no two chunks share one.
+    private static final long CHUNK_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final int size;
+    private boolean uniqueSolution = false;
+    private long seed = System.nanoTime();
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * @param size The grid dimensions of every puzzle.
+     */
+    public BatchGenerator(int size) {
+        this.size = size;
+    }
+
+    /**
+     * @param uniqueSolution Whether puzzles must have exactly one solution.
+     */
+    public void setUniqueSolution(boolean uniqueSolution) {
+        this.uniqueSolution = uniqueSolution;
+    }
+
+    /**
+     * @param seed Where the randomness starts, the same seed makes the same batch.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param parallelism How many threads to use, the number of cores by default.
+     * @throws IllegalArgumentException If parallelism is less than 1.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Makes a batch of puzzles, handing them to the sink in order of index a window at a time.
+     *
+     * @param count How many puzzles to make.
+     * @param sink  What to do with them.
+     * @throws IOException           If the sink failed, the rest of the batch is abandoned.
+     * @throws IllegalStateException If the generator kept giving up on a puzzle, which also abandons the batch.
+     */
+    public void generate(int count, PuzzleSink sink) throws IOException {
+        int window = parallelism * CHUNKS_PER_THREAD * LEAF_SIZE;
+        GeneratedPuzzle[] made = new GeneratedPuzzle[Math.min(window, count)];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (int start = 0; start < count; start += window) {
+                int end = Math.min(count, start + window);
+                pool.invoke(new Batch(start, end, start, made, new AtomicBoolean()));
+                for (int index = start; index < end; index++) {
+                    sink.accept(index, made[index - start]);
+                    // let the puzzle go as soon as the sink is done with it.
+                    made[index - start] = null;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The puzzles from start up to end, start is always the start of a chunk.
+     */
+    private class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int start;
+        private final int end;
+        // the index of the window's first puzzle, which goes in made[0].
+        private final int windowStart;
+        private final GeneratedPuzzle[] made;
+        // set once the window has failed, so the rest of it stops early.
+        private final AtomicBoolean stopped;
+
+        Batch(int start, int end, int windowStart, GeneratedPuzzle[] made, AtomicBoolean stopped) {
+            this.start = start;
+            this.end = end;
+            this.windowStart = windowStart;
+            this.made = made;
+            this.stopped = stopped;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > LEAF_SIZE) {
+                // split on a chunk boundary, so every chunk is made by a single task.
+                int chunks = (end - start + LEAF_SIZE - 1) / LEAF_SIZE;
+                int middle = start + chunks / 2 * LEAF_SIZE;
+                invokeAll(new Batch(start, middle, windowStart, made, stopped),
+                        new Batch(middle, end, windowStart, made, stopped));
+                return;
+            }
+
+            long chunk = start / LEAF_SIZE;
+            Generator generator = new Generator(size, new Random(new SplittableRandom(seed ^ chunk * CHUNK_GAMMA)
+                    .nextLong()));
+            generator.setUniqueSolution(uniqueSolution);
+            for (int index = start; index < end && !stopped.get(); index++) {
+                made[index - windowStart] = generate(generator);
+            }
+        }
+
+        private GeneratedPuzzle generate(Generator generator) {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return generator.generate();
+                } catch (IllegalStateException e) {
+                    if (attempt > MAX_RETRIES) {
+                        stopped.set(true);
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package app.generator;
+
+import app.puzzle.Puzzle;
+
+/**
+ * A puzzle made by the generator together with the solution it was built from.
+ */
+public class GeneratedPuzzle {
+    private final Puzzle puzzle;
+    private final int[] solution;
+
+    /**
+     * @param puzzle   The puzzle.
+     * @param solution The number in every cell, row by row.
+     */
+    public GeneratedPuzzle(Puzzle puzzle, int[] solution) {
+        this.puzzle = puzzle;
+        this.solution = solution.clone();
+    }
+
+    /**
+     * @return The puzzle.
+     */
+    public Puzzle getPuzzle() {
+        return puzzle;
+    }
+
+    /**
+     * @return The number in every cell, row by row.
+     */
+    public int[] getSolution() {
+        return solution.clone();
+    }
+}
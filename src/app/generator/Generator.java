@@ -0,0 +1,448 @@
+package app.generator;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+import app.puzzle.Operator;
+import app.puzzle.Puzzle;
+import app.solver.Solver;
+
+/**
+ * Makes new puzzles without touching any javaFX objects.
+ * <p>
+ * A random {@link LatinSquare} is sampled first, so the solution never has to be searched for, then cages are
+ * carved out of it and their targets worked out from the numbers inside them. If a unique solution is needed,
+ * the solver looks for a second one in a loop with a limited number of attempts and a time limit, and only the
+ * cages where two solutions differ are changed, first their targets and then their shapes.
+ */
+public class Generator {
+    private static final Logger LOGGER = System.getLogger(Generator.class.getName());
+    // cages never get bigger than this.
+    private static final int MAX_CAGE_SIZE = 5;
+    // how many times the targets of ambiguous cages are changed before their shape is.
+    private static final int TARGET_REROLLS = 3;
+    // how many uniqueness checks fit in the time limit at the least.
+    private static final int CHECKS_PER_TIMEOUT = 10;
+    // subtraction and division last, so cages of more than two cells can leave them out.
+    private static final Operator[] OPERATORS = {Operator.ADD, Operator.MULTIPLY, Operator.SUBTRACT, Operator.DIVIDE};
+
+    private final int size;
+    private final int cellCount;
+    private final Random rand;
+    private boolean uniqueSolution = false;
+    private int maxAttempts = 1000;
+    private long timeoutMillis = 30000;
+    private long checkNodeLimit = Long.MAX_VALUE;
+
+    // the puzzle being built, cages are numbered from 0 to cageCount - 1.
+    private int[] cageOf;
+    private int cageCount;
+    private Operator[] operators;
+    private int[] targets;
+    private int[] square;
+
+    /**
+     * @param size The grid dimensions.
+     */
+    public Generator(int size) {
+        this(size, new Random());
+    }
+
+    /**
+     * @param size The grid dimensions.
+     * @param rand Where the randomness comes from, seed it to get the same puzzles again.
+     */
+    public Generator(int size, Random rand) {
+        if (size < 1 || size > 31) {
+            throw new IllegalArgumentException("Grid dimensions must be between 1 and 31: " + size);
+        }
+        this.size = size;
+        this.cellCount = size * size;
+        this.rand = rand;
+    }
+
+    /**
+     * @param uniqueSolution Whether puzzles must have exactly one solution.
+     */
+    public void setUniqueSolution(boolean uniqueSolution) {
+        this.uniqueSolution = uniqueSolution;
+    }
+
+    /**
+     * @param maxAttempts How many times generate() can go round its loop before giving up.
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @param timeoutMillis How long generate() can take before giving up.
+     */
+    public void setTimeout(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Limits every uniqueness check to a number of guesses as well as to its share of the time limit. A puzzle
+     * that needs more is split up just like one that is too slow to check, but at the same point on every
+     * machine, so a seeded generator with a time limit too long to reach always makes the same puzzles.
+     *
+     * @param checkNodeLimit The most guesses a uniqueness check can make.
+     */
+    public void setCheckNodeLimit(long checkNodeLimit) {
+        this.checkNodeLimit = checkNodeLimit;
+    }
+
+    /**
+     * Makes a new puzzle.
+     *
+     * @return The puzzle and its solution.
+     * @throws IllegalStateException If no puzzle was found within the attempts or time allowed.
+     * @throws CancellationException If the thread was interrupted while checking the puzzle has one solution.
+     */
+    public GeneratedPuzzle generate() {
+        long deadline = System.nanoTime() + timeoutMillis * 1000000L;
+        square = LatinSquare.sample(size, rand);
+        carveCages();
+        for (int cage = 0; cage < cageCount; cage++) {
+            pickTarget(cage);
+        }
+        if (!uniqueSolution) {
+            return build();
+        }
+
+        int rerolls = 0;
+
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Generating was interrupted");
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("No puzzle found within " + timeoutMillis + "ms");
+            }
+
+            // a single check can't use up the whole time limit, a puzzle that slow to prove is split up instead.
+            Solver solver = new Solver(toPuzzle());
+            solver.setDeadline(Math.min(deadline, System.nanoTime() + timeoutMillis * 1000000L / CHECKS_PER_TIMEOUT));
+            solver.setNodeLimit(checkNodeLimit);
+            List<int[]> solutions = solver.findSolutions(2);
+            if (solver.hasTimedOut()) {
+                int cell = cellInBiggerCage();
+                if (cell < 0) {
+                    // every cell is a cage of its own and given away, so there is only one solution.
+                    return build();
+                }
+                reshape(cell, false);
+                continue;
+            }
+            if (solutions.size() == 1) {
+                if (LOGGER.isLoggable(Level.DEBUG)) {
+                    LOGGER.log(Level.DEBUG, "Unique {0}x{0} puzzle found after {1} attempts", size, attempt + 1);
+                }
+                return build();
+            }
+
+            // only touch the cages where the two solutions disagree.
+            int[] first = solutions.get(0);
+            int[] second = solutions.get(1);
+            int[] ambiguousCells = new int[cellCount];
+            int ambiguousCount = 0;
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (first[cell] != second[cell]) {
+                    ambiguousCells[ambiguousCount++] = cell;
+                }
+            }
+
+            if (rerolls < TARGET_REROLLS) {
+                rerolls++;
+                for (int i = 0; i < ambiguousCount; i++) {
+                    pickTarget(cageOf[ambiguousCells[i]]);
+                }
+            } else {
+                rerolls = 0;
+                reshape(ambiguousCells[rand.nextInt(ambiguousCount)], true);
+            }
+        }
+        throw new IllegalStateException("No puzzle found in " + maxAttempts + " attempts");
+    }
+
+    /**
+     * Splits the grid into random cages.
+     */
+    private void carveCages() {
+        cageOf = new int[cellCount];
+        Arrays.fill(cageOf, -1);
+        operators = new Operator[cellCount];
+        targets = new int[cellCount];
+        cageCount = 0;
+
+        for (int cell = 0; cell < cellCount; cell++) {
+            // begin a new cage from the next cell that isn't already in a cage.
+            if (cageOf[cell] < 0) {
+                growCage(cell, pickCageSize(), cageCount);
+                cageCount++;
+            }
+        }
+
+    }
+
+    /**
+     * @return A random cage size from 1 to the biggest allowed, with single cages made less likely.
+     */
+    private int pickCageSize() {
+        int cageSize;
+        do {
+            cageSize = rand.nextInt(MAX_CAGE_SIZE + 1);
+            // regenerate to reduce the probability of single cages.
+            if (cageSize == 1) {
+                cageSize = rand.nextInt(MAX_CAGE_SIZE + 1);
+            }
+        } while (cageSize == 0);
+        return cageSize;
+    }
+
+    /**
+     * Grows a cage out from a cell through neighbours that aren't in a cage yet, with a 60% chance to branch
+     * in each direction to create a random pattern of cells.
+     *
+     * @param start    The first cell, which must not be in a cage.
+     * @param cageSize The most cells the cage can have, it may end up smaller if it gets boxed in.
+     * @param cage     The number of the new cage.
+     */
+    private void growCage(int start, int cageSize, int cage) {
+        int[] stack = new int[cageSize];
+        int top = 0;
+        stack[top++] = start;
+        cageOf[start] = cage;
+        int added = 1;
+
+        while (top > 0 && added < cageSize) {
+            int cell = stack[--top];
+            for (int direction = 0; direction < 4 && added < cageSize; direction++) {
+                int neighbour = neighbour(cell, direction);
+                if (neighbour >= 0 && cageOf[neighbour] < 0 && rand.nextInt(10) < 6) {
+                    cageOf[neighbour] = cage;
+                    stack[top++] = neighbour;
+                    added++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Picks a random operator for a cage and works out its target from the filled in grid.
+     * <p>
+     * Subtraction and division are only used on two cells, and only when they give a positive whole number. On
+     * bigger cages they allow so many combinations that the cage barely narrows anything down, which makes the
+     * puzzle much slower to solve.
+     *
+     * @param cage The cage.
+     */
+    private void pickTarget(int cage) {
+        int[] cells = cellsOf(cage);
+        int[] values = new int[cells.length];
+        if (cells.length == 1) {
+            operators[cage] = Operator.NONE;
+            targets[cage] = square[cells[0]];
+            return;
+        }
+
+        while (true) {
+            Operator operator = OPERATORS[rand.nextInt(cells.length == 2 ? OPERATORS.length : 2)];
+            for (int i = 0; i < cells.length; i++) {
+                values[i] = square[cells[i]];
+            }
+            int target = operator.apply(values, values.length);
+            if (target > 0) {
+                operators[cage] = operator;
+                targets[cage] = target;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Changes the shape of the cage around a cell, either joining it to a neighbouring cage or making the cell
+     * a single cage of its own.
+     *
+     * @param cell       A cell where two solutions disagree.
+     * @param allowMerge Whether the cage can be joined to a neighbour, which makes the puzzle harder to solve.
+     */
+    private void reshape(int cell, boolean allowMerge) {
+        int cage = cageOf[cell];
+        int cageSize = cageSize(cage);
+
+        // find a neighbouring cage small enough to join, a cage touching more than one cell is listed for each.
+        int[] candidates = new int[cageSize * 4];
+        int candidateCount = 0;
+        for (int member : cellsOf(cage)) {
+            for (int direction = 0; direction < 4; direction++) {
+                int neighbour = neighbour(member, direction);
+                if (neighbour >= 0 && cageOf[neighbour] != cage
+                        && cageSize + cageSize(cageOf[neighbour]) <= MAX_CAGE_SIZE) {
+                    candidates[candidateCount++] = cageOf[neighbour];
+                }
+            }
+        }
+
+        if (allowMerge && candidateCount > 0 && rand.nextBoolean()) {
+            int other = candidates[rand.nextInt(candidateCount)];
+            for (int i = 0; i < cellCount; i++) {
+                if (cageOf[i] == other) {
+                    cageOf[i] = cage;
+                }
+            }
+            removeCage(other);
+            pickTarget(cageOf[cell]);
+            return;
+        }
+
+        if (cageSize == 1) {
+            // already as small as it gets, the new targets of its neighbours will have to do.
+            return;
+        }
+
+        int single = cageCount++;
+        cageOf[cell] = single;
+        pickTarget(single);
+        splitDisconnected(cage);
+    }
+
+    /**
+     * Picks a random cell from a cage of more than one cell, so that taking it out of its cage is sure to change
+     * the puzzle.
+     *
+     * @return The cell, or -1 if every cage has only one cell.
+     */
+    private int cellInBiggerCage() {
+        int[] cageSizes = new int[cageCount];
+        for (int cell = 0; cell < cellCount; cell++) {
+            cageSizes[cageOf[cell]]++;
+        }
+        int[] cells = new int[cellCount];
+        int count = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (cageSizes[cageOf[cell]] > 1) {
+                cells[count++] = cell;
+            }
+        }
+        return count == 0 ? -1 : cells[rand.nextInt(count)];
+    }
+
+    /**
+     * Gives every connected piece of a cage its own number and a new target, for when a cell has been taken
+     * out of the middle of it.
+     *
+     * @param cage The cage.
+     */
+    private void splitDisconnected(int cage) {
+        int[] cells = cellsOf(cage);
+        boolean[] seen = new boolean[cellCount];
+        int[] stack = new int[cells.length];
+        int firstPiece = cageCount;
+        int piece = cage;
+
+        for (int start : cells) {
+            if (seen[start]) {
+                continue;
+            }
+            if (piece < 0) {
+                piece = cageCount++;
+            }
+            // flood fill through the cells of the old cage.
+            int top = 0;
+            stack[top++] = start;
+            seen[start] = true;
+            while (top > 0) {
+                int current = stack[--top];
+                cageOf[current] = piece;
+                for (int direction = 0; direction < 4; direction++) {
+                    int neighbour = neighbour(current, direction);
+                    if (neighbour >= 0 && !seen[neighbour] && cageOf[neighbour] == cage) {
+                        seen[neighbour] = true;
+                        stack[top++] = neighbour;
+                    }
+                }
+            }
+            piece = -1;
+        }
+
+        // targets can only be worked out once every piece has been relabelled.
+        pickTarget(cage);
+        for (piece = firstPiece; piece < cageCount; piece++) {
+            pickTarget(piece);
+        }
+    }
+
+    /**
+     * Removes a cage that no longer has any cells, moving the last cage into its number.
+     *
+     * @param cage The empty cage.
+     */
+    private void removeCage(int cage) {
+        int last = --cageCount;
+        if (cage == last) {
+            return;
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (cageOf[cell] == last) {
+                cageOf[cell] = cage;
+            }
+        }
+        operators[cage] = operators[last];
+        targets[cage] = targets[last];
+    }
+
+    /**
+     * @param cell      The cell.
+     * @param direction 0 for up, 1 for right, 2 for down and 3 for left.
+     * @return The cell next to it in that direction, or -1 if that is off the grid.
+     */
+    private int neighbour(int cell, int direction) {
+        int x = cell % size;
+        int y = cell / size;
+        switch (direction) {
+            case 0:
+                return y > 0 ? cell - size : -1;
+            case 1:
+                return x < size - 1 ? cell + 1 : -1;
+            case 2:
+                return y < size - 1 ? cell + size : -1;
+            default:
+                return x > 0 ? cell - 1 : -1;
+        }
+    }
+
+    private int[] cellsOf(int cage) {
+        int[] cells = new int[cageSize(cage)];
+        int count = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (cageOf[cell] == cage) {
+                cells[count++] = cell;
+            }
+        }
+        return cells;
+    }
+
+    private int cageSize(int cage) {
+        int count = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (cageOf[cell] == cage) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Puzzle toPuzzle() {
+        return new Puzzle(size, cageOf, Arrays.copyOf(operators, cageCount), Arrays.copyOf(targets, cageCount));
+    }
+
+    private GeneratedPuzzle build() {
+        return new GeneratedPuzzle(toPuzzle(), square);
+    }
+}
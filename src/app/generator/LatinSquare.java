@@ -0,0 +1,211 @@
+package app.generator;
+
+import java.util.Random;
+
+/**
+ * Samples random Latin squares directly, without any search.
+ * <p>
+ * A cyclic square is shuffled by permuting its rows, columns and numbers, which costs one pass over the cells.
+ * That only ever reaches squares built from the cyclic group, so the shuffled square can then be mixed with
+ * steps of the Jacobson–Matthews Markov chain, whose stationary distribution is uniform over all Latin squares.
+ */
+public final class LatinSquare {
+
+    private LatinSquare() {
+    }
+
+    /**
+     * A shuffled and well mixed square, n cubed chain steps is enough in practice for the grids played here.
+     *
+     * @param size The grid dimensions.
+     * @param rand Where the randomness comes from.
+     * @return The number in every cell, row by row.
+     */
+    public static int[] sample(int size, Random rand) {
+        return sample(size, rand, size * size * size);
+    }
+
+    /**
+     * @param size  The grid dimensions.
+     * @param rand  Where the randomness comes from.
+     * @param steps How many Jacobson–Matthews steps to mix with, 0 for just the shuffled cyclic square.
+     * @return The number in every cell, row by row.
+     */
+    public static int[] sample(int size, Random rand, int steps) {
+        int[] square = shuffledCyclic(size, rand);
+        if (steps > 0 && size > 2) {
+            mix(square, size, rand, steps);
+        }
+        return square;
+    }
+
+    /**
+     * @return The cyclic square (x + y) mod n, with its rows, columns and numbers randomly permuted.
+     */
+    private static int[] shuffledCyclic(int size, Random rand) {
+        int[] rows = permutation(size, rand);
+        int[] columns = permutation(size, rand);
+        int[] numbers = permutation(size, rand);
+        int[] square = new int[size * size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                square[y * size + x] = numbers[(rows[y] + columns[x]) % size] + 1;
+            }
+        }
+        return square;
+    }
+
+    private static int[] permutation(int size, Random rand) {
+        int[] permutation = new int[size];
+        for (int i = 0; i < size; i++) {
+            permutation[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int swap = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = swap;
+        }
+        return permutation;
+    }
+
+    /**
+     * Runs the Jacobson–Matthews chain on a square in place.
+     * <p>
+     * The square is held as an incidence cube where (row, column, number) is 1 if that number is in that cell.
+     * Each step moves around a 2x2x2 sub cube, which can leave one entry at -1, an improper square. The chain
+     * keeps stepping until it is proper again, so the square handed back is always a Latin square.
+     * <p>
+     * Steps are cheap, one pass along a line of the cube at most, so mixing costs n to the fourth in the worst
+     * case, a few milliseconds at 16x16.
+     */
+    private static void mix(int[] square, int size, Random rand, int steps) {
+        int area = size * size;
+        byte[] cube = new byte[area * size];
+        for (int cell = 0; cell < area; cell++) {
+            cube[cell * size + square[cell] - 1] = 1;
+        }
+
+        // the -1 entry when improper, row, column and number are -1 when proper.
+        int badRow = -1;
+        int badColumn = -1;
+        int badNumber = -1;
+
+        // stopping at the first proper square after the last step favours squares the chain reaches without an
+        // improper detour, so only stop on every area-th step, far enough apart for that to mix out.
+        for (int step = 0; step < steps || badRow >= 0 || step % area != 0; step++) {
+            int row;
+            int column;
+            int number;
+            int otherRow;
+            int otherColumn;
+            int otherNumber;
+
+            if (badRow < 0) {
+                // start from any 0 entry, the other corners are where its row, column and number lines have 1s.
+                do {
+                    row = rand.nextInt(size);
+                    column = rand.nextInt(size);
+                    number = rand.nextInt(size);
+                } while (cube[(row * size + column) * size + number] != 0);
+                otherRow = findRow(cube, size, column, number, -1, rand);
+                otherColumn = findColumn(cube, size, row, number, -1, rand);
+                otherNumber = findNumber(cube, size, row, column, -1, rand);
+            } else {
+                // start from the -1 entry, each of its lines has two 1s to choose from.
+                row = badRow;
+                column = badColumn;
+                number = badNumber;
+                otherRow = findRow(cube, size, column, number, row, rand);
+                otherColumn = findColumn(cube, size, row, number, column, rand);
+                otherNumber = findNumber(cube, size, row, column, number, rand);
+            }
+
+            cube[(row * size + column) * size + number]++;
+            cube[(row * size + otherColumn) * size + otherNumber]++;
+            cube[(otherRow * size + column) * size + otherNumber]++;
+            cube[(otherRow * size + otherColumn) * size + number]++;
+            cube[(row * size + column) * size + otherNumber]--;
+            cube[(row * size + otherColumn) * size + number]--;
+            cube[(otherRow * size + column) * size + number]--;
+            int last = (otherRow * size + otherColumn) * size + otherNumber;
+            cube[last]--;
+
+            if (cube[last] < 0) {
+                badRow = otherRow;
+                badColumn = otherColumn;
+                badNumber = otherNumber;
+            } else {
+                badRow = -1;
+            }
+        }
+
+        for (int cell = 0; cell < area; cell++) {
+            for (int number = 0; number < size; number++) {
+                if (cube[cell * size + number] == 1) {
+                    square[cell] = number + 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds a row where (row, column, number) is 1, picking at random when there are two.
+     *
+     * @param skip A row to leave out, -1 for none.
+     */
+    private static int findRow(byte[] cube, int size, int column, int number, int skip, Random rand) {
+        int found = -1;
+        for (int row = 0; row < size; row++) {
+            if (row != skip && cube[(row * size + column) * size + number] == 1) {
+                if (found < 0 || rand.nextBoolean()) {
+                    found = row;
+                }
+                if (skip < 0) {
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds a column where (row, column, number) is 1, picking at random when there are two.
+     *
+     * @param skip A column to leave out, -1 for none.
+     */
+    private static int findColumn(byte[] cube, int size, int row, int number, int skip, Random rand) {
+        int found = -1;
+        for (int column = 0; column < size; column++) {
+            if (column != skip && cube[(row * size + column) * size + number] == 1) {
+                if (found < 0 || rand.nextBoolean()) {
+                    found = column;
+                }
+                if (skip < 0) {
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds a number where (row, column, number) is 1, picking at random when there are two.
+     *
+     * @param skip A number to leave out, -1 for none.
+     */
+    private static int findNumber(byte[] cube, int size, int row, int column, int skip, Random rand) {
+        int found = -1;
+        for (int number = 0; number < size; number++) {
+            if (number != skip && cube[(row * size + column) * size + number] == 1) {
+                if (found < 0 || rand.nextBoolean()) {
+                    found = number;
+                }
+                if (skip < 0) {
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+}
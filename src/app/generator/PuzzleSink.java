@@ -0,0 +1,20 @@
+package app.generator;
+
+import java.io.IOException;
+
+/**
+ * Receives puzzles as a {@link BatchGenerator} makes them.
+ * <p>
+ * Calls are made on the thread that started the batch, in order of index, so a sink doesn't need to be thread
+ * safe and a seeded batch always comes out the same.
+ */
+@FunctionalInterface
+public interface PuzzleSink {
+
+    /**
+     * @param index  The position of the puzzle in the batch, from 0.
+     * @param puzzle The puzzle and its solution.
+     * @throws IOException If the puzzle couldn't be written, which stops the batch.
+     */
+    void accept(int index, GeneratedPuzzle puzzle) throws IOException;
+}
@@ -0,0 +1,135 @@
+package app.puzzle;
+
+/**
+ * The mathematical operators a cage can use to reach its target.
+ * <p>
+ * Knows the symbol used for it in saves and on the grid, and how to check a set of numbers against a target.
+ */
+public enum Operator {
+    NONE("") {
+        @Override
+        public int apply(int[] values, int count) {
+            return count == 1 ? values[0] : Integer.MIN_VALUE;
+        }
+    },
+    ADD("+") {
+        @Override
+        public int apply(int[] values, int count) {
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += values[i];
+            }
+            return sum > Integer.MAX_VALUE ? Integer.MIN_VALUE : (int) sum;
+        }
+    },
+    SUBTRACT("-") {
+        @Override
+        public int apply(int[] values, int count) {
+            // the biggest number minus all of the others.
+            int biggest = biggest(values, count);
+            long rest = -biggest;
+            for (int i = 0; i < count; i++) {
+                rest += values[i];
+            }
+            return (int) (biggest - rest);
+        }
+    },
+    MULTIPLY("x") {
+        @Override
+        public int apply(int[] values, int count) {
+            long product = 1;
+            for (int i = 0; i < count; i++) {
+                product *= values[i];
+                if (product > Integer.MAX_VALUE) {
+                    return Integer.MIN_VALUE;
+                }
+            }
+            return (int) product;
+        }
+    },
+    DIVIDE("÷") {
+        @Override
+        public int apply(int[] values, int count) {
+            // the biggest number divided by all of the others, which has to come out whole.
+            int biggest = biggest(values, count);
+            long rest = 1;
+            boolean skipped = false;
+            for (int i = 0; i < count; i++) {
+                if (!skipped && values[i] == biggest) {
+                    skipped = true;
+                    continue;
+                }
+                rest *= values[i];
+                if (rest > biggest) {
+                    return Integer.MIN_VALUE;
+                }
+            }
+            return rest == 0 || biggest % rest != 0 ? Integer.MIN_VALUE : (int) (biggest / rest);
+        }
+    };
+
+    private final String symbol;
+
+    Operator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * @return The symbol used for this operator in saves and on the grid, empty for single cages.
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Finds the operator for a symbol used in a save.
+     *
+     * @param symbol The symbol, empty for single cages.
+     * @return The matching operator.
+     * @throws IllegalArgumentException If the symbol is not an operator.
+     */
+    public static Operator fromSymbol(String symbol) {
+        for (Operator operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return operator;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operator: " + symbol);
+    }
+
+    /**
+     * Checks if a full set of cage numbers meets the target.
+     *
+     * @param values The numbers in the cage, left as they are.
+     * @param count  How many entries of values are used.
+     * @param target The cage target.
+     * @return If the numbers meet the target.
+     */
+    public boolean matches(int[] values, int count, int target) {
+        return apply(values, count) == target;
+    }
+
+    /**
+     * Works out the target a full set of cage numbers reaches with this operator.
+     * <p>
+     * Subtraction takes every other number away from the biggest one, and division divides the biggest one by
+     * every other number, so the order of the numbers doesn't matter for any operator. Everything is worked out
+     * exactly with whole numbers.
+     *
+     * @param values The numbers in the cage, left as they are.
+     * @param count  How many entries of values are used.
+     * @return The target, or Integer.MIN_VALUE if the numbers don't reach a whole number that fits in an int.
+     */
+    public abstract int apply(int[] values, int count);
+
+    /**
+     * @return The biggest of the first count values.
+     */
+    private static int biggest(int[] values, int count) {
+        int biggest = values[0];
+        for (int i = 1; i < count; i++) {
+            biggest = Math.max(biggest, values[i]);
+        }
+        return biggest;
+    }
+}
@@ -0,0 +1,217 @@
+package app.puzzle;
+
+import java.util.Arrays;
+
+/**
+ * A plain description of a math doku problem that has no ties to the GUI.
+ * <p>
+ * Cells are numbered row by row from 0, so the cell in column x and row y is y * size + x.
+ * Cells that are not in any cage only have to follow the row and column rules.
+ * <p>
+ * Puzzles can't be changed once made, and are stored as three flat arrays: the cage every cell is in, and the
+ * operator and target of every cage. Use a {@link Builder} to put one together a cage at a time, and
+ * {@link PuzzleCodec} to store it.
+ */
+public final class Puzzle {
+    private static final Operator[] OPERATORS = Operator.values();
+
+    private final int size;
+    // the cage of every cell, -1 for none.
+    private final int[] cageOf;
+    // the ordinal of every cage's operator.
+    private final byte[] operators;
+    private final int[] targets;
+
+    /**
+     * @param size      The grid dimensions.
+     * @param cageOf    The cage every cell is in row by row, or -1 for none. Every cage needs at least one cell.
+     * @param operators The operator of every cage.
+     * @param targets   The target of every cage.
+     * @throws IllegalArgumentException If the arrays don't describe a set of cages on the grid.
+     */
+    public Puzzle(int size, int[] cageOf, Operator[] operators, int[] targets) {
+        this(size, cageOf.clone(), toOrdinals(operators), targets.clone());
+    }
+
+    /**
+     * Takes the arrays without copying them, for the builder and the codec which made them.
+     */
+    Puzzle(int size, int[] cageOf, byte[] operators, int[] targets) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Grid dimensions must be at least 1: " + size);
+        }
+        if (cageOf.length != size * size) {
+            throw new IllegalArgumentException("Expected a cage for " + size * size + " cells: " + cageOf.length);
+        }
+        if (operators.length != targets.length) {
+            throw new IllegalArgumentException("Expected an operator and a target for every cage");
+        }
+
+        boolean[] used = new boolean[targets.length];
+        for (int cage : cageOf) {
+            if (cage < -1 || cage >= targets.length) {
+                throw new IllegalArgumentException("No such cage: " + cage);
+            }
+            if (cage >= 0) {
+                used[cage] = true;
+            }
+        }
+        for (int cage = 0; cage < targets.length; cage++) {
+            if (!used[cage]) {
+                throw new IllegalArgumentException("Cage " + cage + " has no cells");
+            }
+            if (operators[cage] < 0 || operators[cage] >= OPERATORS.length) {
+                throw new IllegalArgumentException("No such operator: " + operators[cage]);
+            }
+        }
+
+        this.size = size;
+        this.cageOf = cageOf;
+        this.operators = operators;
+        this.targets = targets;
+    }
+
+    private static byte[] toOrdinals(Operator[] operators) {
+        byte[] ordinals = new byte[operators.length];
+        for (int i = 0; i < operators.length; i++) {
+            ordinals[i] = (byte) operators[i].ordinal();
+        }
+        return ordinals;
+    }
+
+    /**
+     * @return The grid dimensions.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return How many cages the puzzle has.
+     */
+    public int getCageCount() {
+        return targets.length;
+    }
+
+    /**
+     * @param cell The cell, counting row by row from 0.
+     * @return The index of the cage the cell is in, or -1 if it isn't in one.
+     */
+    public int getCage(int cell) {
+        return cageOf[cell];
+    }
+
+    /**
+     * @param cage The index of the cage.
+     * @return The cells in the cage, lowest first.
+     */
+    public int[] getCageCells(int cage) {
+        int count = 0;
+        for (int cell = 0; cell < cageOf.length; cell++) {
+            if (cageOf[cell] == cage) {
+                count++;
+            }
+        }
+        int[] cells = new int[count];
+        count = 0;
+        for (int cell = 0; cell < cageOf.length; cell++) {
+            if (cageOf[cell] == cage) {
+                cells[count++] = cell;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * @param cage The index of the cage.
+     * @return The operator used to get to the cage's target.
+     */
+    public Operator getOperator(int cage) {
+        return OPERATORS[operators[cage]];
+    }
+
+    /**
+     * @param cage The index of the cage.
+     * @return The cage's target number.
+     */
+    public int getTarget(int cage) {
+        return targets[cage];
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Puzzle)) {
+            return false;
+        }
+        Puzzle puzzle = (Puzzle) other;
+        return size == puzzle.size && Arrays.equals(cageOf, puzzle.cageOf)
+                && Arrays.equals(operators, puzzle.operators) && Arrays.equals(targets, puzzle.targets);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(cageOf) + Arrays.hashCode(operators)) + Arrays.hashCode(targets);
+    }
+
+    /**
+     * Puts a puzzle together a cage at a time.
+     */
+    public static final class Builder {
+        private final int size;
+        private final int[] cageOf;
+        private byte[] operators = new byte[8];
+        private int[] targets = new int[8];
+        private int cageCount;
+
+        /**
+         * @param size The grid dimensions.
+         */
+        public Builder(int size) {
+            this.size = size;
+            cageOf = new int[size * size];
+            Arrays.fill(cageOf, -1);
+        }
+
+        /**
+         * Adds a cage to the puzzle.
+         *
+         * @param operator The operator used to get to the target.
+         * @param target   The target number.
+         * @param cells    The cells in the cage.
+         * @return The index of the new cage.
+         * @throws IllegalArgumentException If a cell is off the grid or already in a cage, or there are no cells.
+         */
+        public int addCage(Operator operator, int target, int... cells) {
+            if (cells.length == 0) {
+                throw new IllegalArgumentException("A cage needs at least one cell");
+            }
+            for (int cell : cells) {
+                if (cell < 0 || cell >= cageOf.length) {
+                    throw new IllegalArgumentException("Cell is off the grid: " + cell);
+                }
+                if (cageOf[cell] >= 0) {
+                    throw new IllegalArgumentException("Cell is already in a cage: " + cell);
+                }
+            }
+
+            if (cageCount == targets.length) {
+                operators = Arrays.copyOf(operators, cageCount * 2);
+                targets = Arrays.copyOf(targets, cageCount * 2);
+            }
+            for (int cell : cells) {
+                cageOf[cell] = cageCount;
+            }
+            operators[cageCount] = (byte) operator.ordinal();
+            targets[cageCount] = target;
+            return cageCount++;
+        }
+
+        /**
+         * @return The puzzle with every cage added so far.
+         */
+        public Puzzle build() {
+            return new Puzzle(size, cageOf.clone(), Arrays.copyOf(operators, cageCount),
+                    Arrays.copyOf(targets, cageCount));
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package app.puzzle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes puzzles in a compact binary format, for storing far more of them than the text saves allow.
+ * <p>
+ * A file starts with a header, the magic bytes {@code MDKP} followed by a format version byte, then holds any
+ * number of records. Every record is its length followed by:
+ * <ul>
+ * <li>the grid dimensions, one byte</li>
+ * <li>the number of cages</li>
+ * <li>the cage of every cell row by row, plus one so that 0 means no cage</li>
+ * <li>the operator of every cage, one byte each</li>
+ * <li>the target of every cage</li>
+ * </ul>
+ * All of the numbers apart from the single bytes are unsigned varints, 7 bits to a byte with the high bit set on
+ * every byte but the last, so a typical 9x9 puzzle takes around 150 bytes, less than half of its text save.
+ */
+public final class PuzzleCodec {
+    /**
+     * The first bytes of every file, "MDKP".
+     */
+    public static final int MAGIC = 0x4D444B50;
+    /**
+     * The version of the format this class writes.
+     */
+    public static final int VERSION = 1;
+
+    private PuzzleCodec() {
+    }
+
+    /**
+     * @param out Where to write the file header.
+     * @throws IOException If out can't be written to.
+     */
+    public static void writeHeader(OutputStream out) throws IOException {
+        out.write(MAGIC >>> 24);
+        out.write(MAGIC >>> 16);
+        out.write(MAGIC >>> 8);
+        out.write(MAGIC);
+        out.write(VERSION);
+    }
+
+    /**
+     * Checks the header at the start of a file.
+     *
+     * @param in Where to read the header from.
+     * @throws IOException If in can't be read from, or isn't a puzzle file this version can read.
+     */
+    public static void readHeader(InputStream in) throws IOException {
+        int magic = 0;
+        for (int i = 0; i < 4; i++) {
+            magic = magic << 8 | readByte(in);
+        }
+        if (magic != MAGIC) {
+            throw new IOException("Not a puzzle file");
+        }
+        int version = readByte(in);
+        if (version != VERSION) {
+            throw new IOException("Unsupported puzzle file version: " + version);
+        }
+    }
+
+    /**
+     * Writes a record.
+     *
+     * @param puzzle The puzzle to write.
+     * @param out    Where to write it.
+     * @return How many bytes were written.
+     * @throws IOException If out can't be written to.
+     */
+    public static int write(Puzzle puzzle, OutputStream out) throws IOException {
+        byte[] record = encode(puzzle);
+        int written = writeVarint(out, record.length);
+        out.write(record);
+        return written + record.length;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @param in Where to read it from, just after the header or the previous record.
+     * @return The puzzle, or null if in has ended.
+     * @throws IOException If in can't be read from or the record is corrupt.
+     */
+    public static Puzzle read(InputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        int length = first & 0x7f;
+        for (int shift = 7; (first & 0x80) != 0; shift += 7) {
+            if (shift > 28) {
+                throw new IOException("Corrupt puzzle record length");
+            }
+            first = readByte(in);
+            length |= (first & 0x7f) << shift;
+        }
+        // a fifth byte can reach the sign bit.
+        if (length < 0) {
+            throw new IOException("Corrupt puzzle record length");
+        }
+
+        byte[] record = in.readNBytes(length);
+        if (record.length != length) {
+            throw new EOFException("Puzzle record cut short");
+        }
+        return decodeWhole(ByteBuffer.wrap(record));
+    }
+
+    /**
+     * Reads a record, length and all, leaving the buffer just after it.
+     *
+     * @param buffer Where to read it from.
+     * @return The puzzle.
+     * @throws IOException If the record is corrupt or cut short.
+     */
+    public static Puzzle read(ByteBuffer buffer) throws IOException {
+        try {
+            int length = readVarint(buffer);
+            if (length < 0 || length > buffer.remaining()) {
+                throw new EOFException("Puzzle record cut short");
+            }
+            ByteBuffer record = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            return decodeWhole(record);
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("Puzzle record cut short");
+        }
+    }
+
+    /**
+     * Reads the body of a record that should take up the whole buffer.
+     */
+    private static Puzzle decodeWhole(ByteBuffer record) throws IOException {
+        Puzzle puzzle = decode(record);
+        if (record.hasRemaining()) {
+            throw new IOException("Corrupt puzzle record");
+        }
+        return puzzle;
+    }
+
+    /**
+     * @param puzzle The puzzle.
+     * @return The body of its record, without the length in front.
+     */
+    public static byte[] encode(Puzzle puzzle) {
+        int size = puzzle.getSize();
+        if (size > 255) {
+            throw new IllegalArgumentException("Grid dimensions too big to store: " + size);
+        }
+        int cageCount = puzzle.getCageCount();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size * size + cageCount * 3 + 4);
+        out.write(size);
+        writeVarint(out, cageCount);
+        for (int cell = 0; cell < size * size; cell++) {
+            writeVarint(out, puzzle.getCage(cell) + 1);
+        }
+        for (int cage = 0; cage < cageCount; cage++) {
+            out.write(puzzle.getOperator(cage).ordinal());
+        }
+        for (int cage = 0; cage < cageCount; cage++) {
+            writeVarint(out, puzzle.getTarget(cage));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads the body of a record, leaving the buffer just after it.
+     *
+     * @param buffer Where to read it from.
+     * @return The puzzle.
+     * @throws IOException If the record is corrupt or cut short.
+     */
+    public static Puzzle decode(ByteBuffer buffer) throws IOException {
+        try {
+            int size = buffer.get() & 0xff;
+            int cageCount = readVarint(buffer);
+            if (cageCount > size * size) {
+                throw new IOException("Corrupt puzzle record: " + cageCount + " cages");
+            }
+            int[] cageOf = new int[size * size];
+            for (int cell = 0; cell < cageOf.length; cell++) {
+                cageOf[cell] = readVarint(buffer) - 1;
+            }
+            byte[] operators = new byte[cageCount];
+            buffer.get(operators);
+            int[] targets = new int[cageCount];
+            for (int cage = 0; cage < cageCount; cage++) {
+                targets[cage] = readVarint(buffer);
+            }
+            return new Puzzle(size, cageOf, operators, targets);
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("Puzzle record cut short");
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt puzzle record: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return How many bytes were written.
+     */
+    private static int writeVarint(OutputStream out, int value) throws IOException {
+        int written = 1;
+        while ((value & ~0x7f) != 0) {
+            out.write(value & 0x7f | 0x80);
+            value >>>= 7;
+            written++;
+        }
+        out.write(value);
+        return written;
+    }
+
+    // the same again, as writing to a ByteArrayOutputStream can't throw an IOException.
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write(value & 0x7f | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int next = buffer.get();
+            value |= (next & 0x7f) << shift;
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt puzzle record: varint too long");
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int next = in.read();
+        if (next < 0) {
+            throw new EOFException("Puzzle file cut short");
+        }
+        return next;
+    }
+}
@@ -0,0 +1,115 @@
+package app.puzzle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A pack of puzzles read straight out of a memory mapped file, where any puzzle can be fetched by its index
+ * without reading the rest.
+ * <p>
+ * A pack starts with the magic bytes {@code MDPK} and a version, followed by every puzzle as a
+ * {@link PuzzleCodec} record. After the puzzles comes the index, the offset of every record as a long, and last
+ * of all a trailer of the index's offset, the number of puzzles and the magic bytes {@code MDIX}. Packs are
+ * written by a {@link PuzzlePackWriter}.
+ * <p>
+ * The file is only read with absolute reads and slices of the mapping, so any number of threads can fetch
+ * puzzles from one pack at the same time. The mapping lasts until the pack is garbage collected, the file itself
+ * is closed as soon as it has been mapped.
+ */
+public final class PuzzlePack {
+    static final int MAGIC = 0x4D44504B;
+    static final int INDEX_MAGIC = 0x4D444958;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int TRAILER_SIZE = 16;
+
+    private final ByteBuffer mapped;
+    private final int indexOffset;
+    private final int count;
+
+    private PuzzlePack(ByteBuffer mapped, int indexOffset, int count) {
+        this.mapped = mapped;
+        this.indexOffset = indexOffset;
+        this.count = count;
+    }
+
+    /**
+     * Maps a pack and checks its header and index.
+     *
+     * @param path The pack file.
+     * @return The pack.
+     * @throws IOException If the file can't be read, isn't a pack, or is too big to map in one go (2GB).
+     */
+    public static PuzzlePack open(Path path) throws IOException {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Puzzle pack too big to map: " + fileSize + " bytes");
+            }
+            if (fileSize < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException("Not a puzzle pack");
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        }
+
+        if (mapped.getInt(0) != MAGIC) {
+            throw new IOException("Not a puzzle pack");
+        }
+        int version = mapped.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported puzzle pack version: " + version);
+        }
+
+        int trailer = mapped.capacity() - TRAILER_SIZE;
+        long indexOffset = mapped.getLong(trailer);
+        int count = mapped.getInt(trailer + 8);
+        if (mapped.getInt(trailer + 12) != INDEX_MAGIC || count < 0 || indexOffset < HEADER_SIZE
+                || indexOffset + count * 8L != trailer) {
+            throw new IOException("Puzzle pack index is missing or corrupt");
+        }
+        return new PuzzlePack(mapped, (int) indexOffset, count);
+    }
+
+    /**
+     * @param path A file.
+     * @return If the file starts like a puzzle pack.
+     * @throws IOException If the file can't be read.
+     */
+    public static boolean isPack(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer start = ByteBuffer.allocate(4);
+            while (start.hasRemaining() && channel.read(start) >= 0) {
+                // keep reading until the magic bytes are in or the file ends.
+            }
+            return !start.hasRemaining() && start.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * @return How many puzzles are in the pack.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Decodes one puzzle, in constant time however big the pack is.
+     *
+     * @param index The index of the puzzle, from 0 to size() - 1.
+     * @return The puzzle.
+     * @throws IOException If the puzzle's record is corrupt.
+     */
+    public Puzzle get(int index) throws IOException {
+        Objects.checkIndex(index, count);
+        long offset = mapped.getLong(indexOffset + index * 8);
+        if (offset < HEADER_SIZE || offset >= indexOffset) {
+            throw new IOException("Puzzle pack index is corrupt at " + index);
+        }
+        return PuzzleCodec.read(mapped.slice((int) offset, indexOffset - (int) offset));
+    }
+}
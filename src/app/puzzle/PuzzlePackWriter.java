@@ -0,0 +1,93 @@
+package app.puzzle;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Writes a pack of puzzles that a {@link PuzzlePack} can fetch from by index.
+ * <p>
+ * Puzzles are written as they are added, and the index of where every one starts is written when the writer is
+ * closed, so a pack can be made without holding it in memory. The pack isn't readable until then, and a pack
+ * that is given up on with {@link #abort()} never is.
+ */
+public class PuzzlePackWriter implements Closeable {
+    private final DataOutputStream out;
+    private long[] offsets = new long[1024];
+    private int count;
+    private long position;
+    private boolean closed;
+
+    /**
+     * Writes the pack header.
+     *
+     * @param out Where to write the pack, closed along with the writer.
+     * @throws IOException If out can't be written to.
+     */
+    public PuzzlePackWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(PuzzlePack.MAGIC);
+        this.out.writeInt(PuzzlePack.VERSION);
+        position = PuzzlePack.HEADER_SIZE;
+    }
+
+    /**
+     * @param puzzle The puzzle to add.
+     * @return The index of the puzzle in the pack.
+     * @throws IOException If the pack can't be written to.
+     */
+    public int add(Puzzle puzzle) throws IOException {
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+        }
+        offsets[count] = position;
+        position += PuzzleCodec.write(puzzle, out);
+        return count++;
+    }
+
+    /**
+     * @return How many puzzles have been added.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Closes the stream without writing the index, for when the pack can't be finished. The file is left without
+     * a trailer, so it can't be mistaken for a whole pack.
+     *
+     * @throws IOException If the stream can't be closed.
+     */
+    public void abort() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        out.close();
+    }
+
+    /**
+     * Writes the index and the trailer that points to it, then closes the stream.
+     *
+     * @throws IOException If the pack can't be written to.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (DataOutputStream stream = out) {
+            long indexOffset = position;
+            for (int i = 0; i < count; i++) {
+                stream.writeLong(offsets[i]);
+            }
+            stream.writeLong(indexOffset);
+            stream.writeInt(count);
+            stream.writeInt(PuzzlePack.INDEX_MAGIC);
+        }
+    }
+}
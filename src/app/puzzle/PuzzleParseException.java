@@ -0,0 +1,38 @@
+package app.puzzle;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a text save isn't in the right format, saying where the problem is.
+ */
+public class PuzzleParseException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+    private final int column;
+
+    /**
+     * @param message What is wrong.
+     * @param line    The line the problem is on, counting from 1.
+     * @param column  The column the problem is at, counting from 1.
+     */
+    public PuzzleParseException(String message, int line, int column) {
+        super("Line " + line + ", column " + column + ": " + message);
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * @return The line the problem is on, counting from 1.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return The column the problem is at, counting from 1.
+     */
+    public int getColumn() {
+        return column;
+    }
+}
@@ -0,0 +1,318 @@
+package app.puzzle;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads puzzles in the text save format, a character at a time in one pass.
+ * <p>
+ * Every cage is one line, the target followed by the operator symbol, a space, then the cells numbered from 1
+ * row by row and separated by commas, e.g. {@code 11+ 1,7}. Single cages can leave out the operator. A file can
+ * hold any number of puzzles separated by blank lines. The grid dimensions come from the highest cell, which has
+ * to make a square grid.
+ * <p>
+ * Cages go straight into the arrays a {@link Puzzle} is made from as they are read, nothing is split into strings
+ * first, and the input is read through a fixed size buffer, so files of any size can be read. The first problem
+ * found is thrown as a {@link PuzzleParseException} with its line and column.
+ */
+public class PuzzleParser {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int END = -1;
+    // the most cells a stored puzzle can have, so a typo can't ask for a huge grid.
+    private static final int MAX_CELL = 255 * 255;
+
+    // where characters come from, chars is refilled from reader or decoded from bytes, or holds all of the text.
+    private final Reader reader;
+    private final ByteBuffer bytes;
+    private final CharsetDecoder decoder;
+    private final CharBuffer chars;
+    private boolean endOfInput;
+
+    // where the next character is.
+    private int line = 1;
+    private int column = 1;
+
+    // the puzzle being read.
+    private int[] cageOf = new int[64];
+    private byte[] operators = new byte[16];
+    private int[] targets = new int[16];
+    private int cageCount;
+    private int highestCell;
+    private int highestLine;
+    private int highestColumn;
+
+    /**
+     * @param reader Where to read the saves from.
+     */
+    public PuzzleParser(Reader reader) {
+        this(reader, null, CharBuffer.allocate(BUFFER_SIZE).flip());
+    }
+
+    /**
+     * @param utf8 The saves, encoded in UTF-8. Read from its position to its limit.
+     */
+    public PuzzleParser(ByteBuffer utf8) {
+        this(null, utf8, CharBuffer.allocate(BUFFER_SIZE).flip());
+    }
+
+    private PuzzleParser(Reader reader, ByteBuffer bytes, CharBuffer chars) {
+        this.reader = reader;
+        this.bytes = bytes;
+        this.chars = chars;
+        endOfInput = reader == null && bytes == null;
+        decoder = bytes == null ? null
+                : StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        Arrays.fill(cageOf, -1);
+    }
+
+    /**
+     * Reads a save holding exactly one puzzle, like one typed in by the user.
+     *
+     * @param text The save.
+     * @return The puzzle.
+     * @throws PuzzleParseException If the save isn't in the right format, or doesn't hold exactly one puzzle.
+     */
+    public static Puzzle parse(CharSequence text) throws PuzzleParseException {
+        PuzzleParser parser = new PuzzleParser(null, null, CharBuffer.wrap(text));
+        try {
+            Puzzle puzzle = parser.next();
+            if (puzzle == null) {
+                throw parser.error("expected a cage");
+            }
+            parser.skipBlankLines();
+            if (parser.peek() != END) {
+                throw parser.error("expected only one puzzle");
+            }
+            return puzzle;
+        } catch (PuzzleParseException e) {
+            throw e;
+        } catch (IOException e) {
+            // text in memory can't fail to be read.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the next puzzle.
+     *
+     * @return The puzzle, or null if there are no more.
+     * @throws IOException If the input can't be read, or a {@link PuzzleParseException} if it isn't in the right
+     *                     format.
+     */
+    public Puzzle next() throws IOException {
+        Arrays.fill(cageOf, 0, highestCell, -1);
+        highestCell = 0;
+        cageCount = 0;
+
+        skipBlankLines();
+        while (true) {
+            skipSpaces();
+            int c = peek();
+            if (c == END) {
+                break;
+            }
+            if (isNewline(c)) {
+                // a blank line ends the puzzle.
+                newline();
+                break;
+            }
+            readCage();
+        }
+        if (cageCount == 0) {
+            return null;
+        }
+
+        int size = (int) Math.round(Math.sqrt(highestCell));
+        if (size * size != highestCell) {
+            throw new PuzzleParseException("the highest cell, " + highestCell + ", doesn't make a square grid",
+                    highestLine, highestColumn);
+        }
+        return new Puzzle(size, Arrays.copyOf(cageOf, highestCell), Arrays.copyOf(operators, cageCount),
+                Arrays.copyOf(targets, cageCount));
+    }
+
+    /**
+     * Reads one line holding a cage, including the line break at the end.
+     */
+    private void readCage() throws IOException {
+        int target = readNumber("a target number");
+
+        Operator operator = Operator.NONE;
+        int c = peek();
+        if (c != END && !isSpace(c) && !isNewline(c)) {
+            operator = operatorFor(c);
+            advance();
+        }
+        if (!isSpace(peek())) {
+            throw error("expected a space before the cells");
+        }
+        skipSpaces();
+
+        if (cageCount == targets.length) {
+            operators = Arrays.copyOf(operators, cageCount * 2);
+            targets = Arrays.copyOf(targets, cageCount * 2);
+        }
+        int cage = cageCount;
+
+        while (true) {
+            int cellLine = line;
+            int cellColumn = column;
+            int cell = readNumber("a cell number");
+            if (cell < 1 || cell > MAX_CELL) {
+                throw new PuzzleParseException("cells are numbered from 1 to " + MAX_CELL, cellLine, cellColumn);
+            }
+            if (cell > cageOf.length) {
+                int length = cageOf.length;
+                cageOf = Arrays.copyOf(cageOf, Math.max(cell, length * 2));
+                Arrays.fill(cageOf, length, cageOf.length, -1);
+            }
+            if (cageOf[cell - 1] >= 0) {
+                throw new PuzzleParseException("cell " + cell + " is already in a cage", cellLine, cellColumn);
+            }
+            cageOf[cell - 1] = cage;
+            if (cell > highestCell) {
+                highestCell = cell;
+                highestLine = cellLine;
+                highestColumn = cellColumn;
+            }
+
+            skipSpaces();
+            if (peek() != ',') {
+                break;
+            }
+            advance();
+            skipSpaces();
+        }
+
+        c = peek();
+        if (c != END && !isNewline(c)) {
+            throw error("expected a comma or the end of the line");
+        }
+        if (c != END) {
+            newline();
+        }
+        operators[cage] = (byte) operator.ordinal();
+        targets[cage] = target;
+        cageCount++;
+    }
+
+    private int readNumber(String what) throws IOException {
+        int c = peek();
+        if (c < '0' || c > '9') {
+            throw error("expected " + what);
+        }
+        int startLine = line;
+        int startColumn = column;
+        long number = 0;
+        do {
+            number = number * 10 + (c - '0');
+            if (number > Integer.MAX_VALUE) {
+                throw new PuzzleParseException("number too big", startLine, startColumn);
+            }
+            advance();
+            c = peek();
+        } while (c >= '0' && c <= '9');
+        return (int) number;
+    }
+
+    private Operator operatorFor(int c) throws PuzzleParseException {
+        switch (c) {
+            case '+':
+                return Operator.ADD;
+            case '-':
+                return Operator.SUBTRACT;
+            case 'x':
+                return Operator.MULTIPLY;
+            case '÷':
+                return Operator.DIVIDE;
+            default:
+                throw error("unknown operator '" + (char) c + "'");
+        }
+    }
+
+    private void skipSpaces() throws IOException {
+        while (isSpace(peek())) {
+            advance();
+        }
+    }
+
+    private void skipBlankLines() throws IOException {
+        while (true) {
+            skipSpaces();
+            if (!isNewline(peek())) {
+                return;
+            }
+            newline();
+        }
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private static boolean isNewline(int c) {
+        return c == '\n' || c == '\r';
+    }
+
+    /**
+     * Moves past a line break, either \n, \r\n or \r.
+     */
+    private void newline() throws IOException {
+        if (peek() == '\r') {
+            advance();
+            if (peek() == '\n') {
+                advance();
+            }
+        } else {
+            advance();
+        }
+        line++;
+        column = 1;
+    }
+
+    /**
+     * @return The next character without moving past it, or END.
+     */
+    private int peek() throws IOException {
+        if (!chars.hasRemaining()) {
+            fill();
+            if (!chars.hasRemaining()) {
+                return END;
+            }
+        }
+        return chars.get(chars.position());
+    }
+
+    private void advance() {
+        chars.position(chars.position() + 1);
+        column++;
+    }
+
+    private void fill() throws IOException {
+        if (endOfInput) {
+            return;
+        }
+        chars.clear();
+        if (reader != null) {
+            endOfInput = reader.read(chars) < 0;
+        } else {
+            decoder.decode(bytes, chars, true);
+            if (!bytes.hasRemaining()) {
+                decoder.flush(chars);
+                endOfInput = true;
+            }
+        }
+        chars.flip();
+    }
+
+    private PuzzleParseException error(String message) {
+        return new PuzzleParseException(message, line, column);
+    }
+}
@@ -0,0 +1,167 @@
+package app.puzzle;
+
+import java.util.Arrays;
+
+/**
+ * Checks that a puzzle is one the game can be played on.
+ * <p>
+ * Every cell has to be in a cage, every cage has to be joined up through cells that share a side, and every
+ * target has to be reachable by a cage of that many cells. Cages can't overlap, as a {@link Puzzle} only has one
+ * cage for every cell. The whole check takes time in proportion to the number of cells, joining up cages with a
+ * union-find over the grid.
+ */
+public final class PuzzleValidator {
+
+    private PuzzleValidator() {
+    }
+
+    /**
+     * @param puzzle The puzzle to check.
+     * @return What is wrong with the puzzle, or null if nothing is.
+     */
+    public static String validate(Puzzle puzzle) {
+        int size = puzzle.getSize();
+        // the solver keeps the numbers a cell can take as bits of an int.
+        if (size < 1 || size > 31) {
+            return "grid dimensions must be between 1 and 31, not " + size;
+        }
+        int cellCount = size * size;
+
+        // join every cell to the neighbours right of and below it in the same cage.
+        int[] parent = new int[cellCount];
+        int[] cageSizes = new int[puzzle.getCageCount()];
+        for (int cell = 0; cell < cellCount; cell++) {
+            int cage = puzzle.getCage(cell);
+            if (cage < 0) {
+                return "cell " + (cell + 1) + " isn't in a cage";
+            }
+            cageSizes[cage]++;
+            parent[cell] = cell;
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            int cage = puzzle.getCage(cell);
+            if (cell % size < size - 1 && puzzle.getCage(cell + 1) == cage) {
+                union(parent, cell, cell + 1);
+            }
+            if (cell + size < cellCount && puzzle.getCage(cell + size) == cage) {
+                union(parent, cell, cell + size);
+            }
+        }
+
+        // a joined up cage has one root, the root of its first cell.
+        int[] cageRoots = new int[puzzle.getCageCount()];
+        int[] firstCells = new int[puzzle.getCageCount()];
+        Arrays.fill(cageRoots, -1);
+        for (int cell = 0; cell < cellCount; cell++) {
+            int cage = puzzle.getCage(cell);
+            int root = find(parent, cell);
+            if (cageRoots[cage] < 0) {
+                cageRoots[cage] = root;
+                firstCells[cage] = cell;
+            } else if (cageRoots[cage] != root) {
+                return "the cage with cell " + (firstCells[cage] + 1) + " isn't joined up";
+            }
+        }
+
+        for (int cage = 0; cage < puzzle.getCageCount(); cage++) {
+            if (!isReachable(puzzle.getOperator(cage), puzzle.getTarget(cage), cageSizes[cage], size)) {
+                return "the cage with cell " + (firstCells[cage] + 1) + " can't reach "
+                        + puzzle.getTarget(cage) + puzzle.getOperator(cage).getSymbol();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param puzzle The puzzle to check.
+     * @return If nothing is wrong with the puzzle.
+     */
+    public static boolean isValid(Puzzle puzzle) {
+        return validate(puzzle) == null;
+    }
+
+    /**
+     * Checks a target against the smallest and biggest values a cage of a size can reach, and for products that
+     * the target can be made from numbers on the grid.
+     * <p>
+     * Numbers can repeat in a cage as long as they aren't in the same row or column, so apart from two cell cages,
+     * which always sit in one row or column, repeats are allowed here.
+     *
+     * @param operator   The cage's operator.
+     * @param target     The cage's target.
+     * @param cells      How many cells the cage has.
+     * @param dimensions The grid dimensions, the biggest number.
+     * @return If some numbers could reach the target.
+     */
+    static boolean isReachable(Operator operator, int target, int cells, int dimensions) {
+        switch (operator) {
+            case NONE:
+                return cells == 1 && target >= 1 && target <= dimensions;
+            case ADD:
+                if (cells == 2) {
+                    return target >= 3 && target <= 2 * dimensions - 1;
+                }
+                return target >= cells && target <= (long) cells * dimensions;
+            case SUBTRACT:
+                // the biggest number less the smallest all of the others can be.
+                return cells >= 2 && target >= 1 && target <= dimensions - (cells - 1);
+            case MULTIPLY:
+                if (cells == 2) {
+                    return canMultiplyTwo(target, dimensions);
+                }
+                return cells >= 1 && target >= 1 && canMultiply(target, cells, dimensions);
+            default:
+                // the biggest number over a product of at least 1, and two numbers in one line can't be equal.
+                return cells >= 2 && target >= (cells == 2 ? 2 : 1) && target <= dimensions;
+        }
+    }
+
+    /**
+     * @return If target is the product of two different numbers that are no bigger than largest.
+     */
+    private static boolean canMultiplyTwo(int target, int largest) {
+        for (int smaller = 1; smaller < largest && smaller * smaller < target; smaller++) {
+            if (target % smaller == 0 && target / smaller <= largest) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return If target is a product of count numbers that are no bigger than largest.
+     */
+    private static boolean canMultiply(int target, int count, int largest) {
+        if (target == 1) {
+            return true;
+        }
+        // too big for even the biggest numbers, which also stops the search early on the way to a dead end.
+        long biggest = 1;
+        for (int i = 0; i < count && biggest < target; i++) {
+            biggest *= largest;
+        }
+        if (biggest < target) {
+            return false;
+        }
+        // try the biggest factor first, later factors are never bigger so every product is only tried once.
+        for (int factor = Math.min(largest, target); factor >= 2; factor--) {
+            if (target % factor == 0 && canMultiply(target / factor, count - 1, factor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int find(int[] parent, int cell) {
+        while (parent[cell] != cell) {
+            // halve the path on the way up.
+            parent[cell] = parent[parent[cell]];
+            cell = parent[cell];
+        }
+        return cell;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        parent[find(parent, a)] = find(parent, b);
+    }
+}
@@ -0,0 +1,36 @@
+package app.puzzle;
+
+import java.io.IOException;
+
+/**
+ * Writes puzzles in the same text format as the saves the game loads.
+ * <p>
+ * Every cage is one line, the target followed by the operator symbol, a space, then the cells numbered from 1
+ * row by row and separated by commas, e.g. {@code 11+ 1,7}.
+ */
+public final class PuzzleWriter {
+
+    private PuzzleWriter() {
+    }
+
+    /**
+     * @param puzzle The puzzle to write.
+     * @param out    Where to write it, every line ends with a line separator.
+     * @throws IOException If out can't be written to.
+     */
+    public static void write(Puzzle puzzle, Appendable out) throws IOException {
+        for (int cage = 0; cage < puzzle.getCageCount(); cage++) {
+            out.append(Integer.toString(puzzle.getTarget(cage)));
+            out.append(puzzle.getOperator(cage).getSymbol());
+            out.append(' ');
+            int[] cells = puzzle.getCageCells(cage);
+            for (int i = 0; i < cells.length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(Integer.toString(cells[i] + 1));
+            }
+            out.append(System.lineSeparator());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package app.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import app.puzzle.Operator;
+
+/**
+ * Every combination of numbers that meets a cage target, worked out once and shared by all cages with the same
+ * operator, size, target and grid dimensions.
+ * <p>
+ * Combinations are stored sorted low to high, since the order of the cells doesn't change the result. Which
+ * cells can actually share a number depends on the shape of the cage, so combinations are allowed to repeat
+ * numbers and the solver's row and column rules deal with the rest.
+ */
+public final class CageTable {
+    // cages with more possible combinations than this are not worth listing.
+    private static final long COMBINATION_LIMIT = 200000;
+
+    private static final ConcurrentHashMap<Long, CageTable> CACHE = new ConcurrentHashMap<Long, CageTable>();
+
+    private final int[][] combinations;
+    private final int[] masks;
+    private final int union;
+
+    private CageTable(List<int[]> combinations) {
+        this.combinations = combinations.toArray(new int[combinations.size()][]);
+        masks = new int[this.combinations.length];
+        int all = 0;
+        for (int i = 0; i < masks.length; i++) {
+            for (int number : this.combinations[i]) {
+                masks[i] |= 1 << (number - 1);
+            }
+            all |= masks[i];
+        }
+        union = all;
+    }
+
+    /**
+     * Finds the table for a cage, working it out the first time it is asked for.
+     *
+     * @param operator       The operator used to get to the target.
+     * @param cageSize       How many cells are in the cage.
+     * @param target         The target number.
+     * @param gridDimensions The grid dimensions, the highest number a cell can have.
+     * @return The table, or null if the cage is too big to list every combination.
+     */
+    public static CageTable get(Operator operator, int cageSize, int target, int gridDimensions) {
+        if (cageSize < 1 || gridDimensions < 1 || gridDimensions > 31
+                || countMultisets(gridDimensions, cageSize) > COMBINATION_LIMIT) {
+            return null;
+        }
+        long key = ((long) target << 32) | (operator.ordinal() << 16) | (cageSize << 8) | gridDimensions;
+        CageTable table = CACHE.get(key);
+        if (table == null) {
+            table = build(operator, cageSize, target, gridDimensions);
+            CageTable existing = CACHE.putIfAbsent(key, table);
+            if (existing != null) {
+                table = existing;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @return How many combinations meet the target.
+     */
+    public int size() {
+        return combinations.length;
+    }
+
+    /**
+     * @param index Which combination.
+     * @return The combination's numbers sorted low to high. Must not be changed.
+     */
+    public int[] getCombination(int index) {
+        return combinations[index];
+    }
+
+    /**
+     * @param index Which combination.
+     * @return The numbers used in the combination as a bitmask.
+     */
+    public int getMask(int index) {
+        return masks[index];
+    }
+
+    /**
+     * @return Every number used by any combination as a bitmask, a cell in the cage can't be anything else.
+     */
+    public int getUnion() {
+        return union;
+    }
+
+    private static CageTable build(Operator operator, int cageSize, int target, int gridDimensions) {
+        List<int[]> found = new ArrayList<int[]>();
+        int[] combination = new int[cageSize];
+        fill(operator, target, gridDimensions, combination, 0, 1, found);
+        return new CageTable(found);
+    }
+
+    /**
+     * Lists every sorted combination from index onwards, cutting off sums and products that have already gone
+     * past the target.
+     */
+    private static void fill(Operator operator, int target, int gridDimensions, int[] combination, int index,
+            int lowest, List<int[]> found) {
+        if (index == combination.length) {
+            if (operator.matches(combination, combination.length, target)) {
+                found.add(combination.clone());
+            }
+            return;
+        }
+
+        for (int number = lowest; number <= gridDimensions; number++) {
+            combination[index] = number;
+            int rest = combination.length - index - 1;
+            if (operator == Operator.ADD && partialSum(combination, index) + number * rest > target) {
+                // the rest are at least as big as this number.
+                return;
+            }
+            if (operator == Operator.MULTIPLY && target % partialProduct(combination, index) != 0) {
+                continue;
+            }
+            fill(operator, target, gridDimensions, combination, index + 1, number, found);
+        }
+    }
+
+    private static long partialSum(int[] combination, int index) {
+        long sum = 0;
+        for (int i = 0; i <= index; i++) {
+            sum += combination[i];
+        }
+        return sum;
+    }
+
+    private static long partialProduct(int[] combination, int index) {
+        long product = 1;
+        for (int i = 0; i <= index; i++) {
+            product *= combination[i];
+        }
+        return product;
+    }
+
+    /**
+     * @return How many sorted combinations of count numbers from 1 to n there are, capped just above the limit.
+     */
+    private static long countMultisets(int n, int count) {
+        long result = 1;
+        for (int i = 1; i <= count; i++) {
+            result = result * (n + i - 1) / i;
+            if (result > COMBINATION_LIMIT) {
+                return COMBINATION_LIMIT + 1;
+            }
+        }
+        return result;
+    }
+}
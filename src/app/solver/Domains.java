@@ -0,0 +1,167 @@
+package app.solver;
+
+import java.util.Arrays;
+
+/**
+ * The options left for every cell, and the number placed in it, stored as primitive ints.
+ * <p>
+ * Options are a bitmask with bit v - 1 standing for the number v. Every change is written to a trail first,
+ * so that a failed guess can be undone by rolling back to a mark instead of copying the whole grid.
+ */
+public final class Domains {
+    private final int cellCount;
+    private final int[] masks;
+    private final int[] values;
+    // pairs of (slot, old value), slots below cellCount are masks, the rest are placed numbers.
+    private int[] trail;
+    private int trailSize;
+
+    /**
+     * @param cellCount How many cells there are.
+     * @param initial   The options every cell starts with.
+     */
+    public Domains(int cellCount, int initial) {
+        this.cellCount = cellCount;
+        masks = new int[cellCount];
+        values = new int[cellCount];
+        Arrays.fill(masks, initial);
+        trail = new int[cellCount * 4];
+    }
+
+    /**
+     * Copies the options and numbers of every cell, but not the trail, so the copy can't undo past this point.
+     *
+     * @param other The domains to copy.
+     */
+    public Domains(Domains other) {
+        cellCount = other.cellCount;
+        masks = other.masks.clone();
+        values = other.values.clone();
+        trail = new int[cellCount * 4];
+    }
+
+    /**
+     * @param cell The cell.
+     * @return The options left for the cell as a bitmask.
+     */
+    public int get(int cell) {
+        return masks[cell];
+    }
+
+    /**
+     * @param cell The cell.
+     * @return The number placed in the cell, 0 if it hasn't been placed.
+     */
+    public int getValue(int cell) {
+        return values[cell];
+    }
+
+    /**
+     * @return A copy of the numbers placed in every cell.
+     */
+    public int[] getValues() {
+        return values.clone();
+    }
+
+    /**
+     * Keeps only some of the options of a cell.
+     *
+     * @param cell The cell.
+     * @param mask The options that are allowed to stay.
+     * @return If any options were removed.
+     */
+    public boolean restrict(int cell, int mask) {
+        int old = masks[cell];
+        if ((old & mask) == old) {
+            return false;
+        }
+        record(cell, old);
+        masks[cell] = old & mask;
+        return true;
+    }
+
+    /**
+     * Places a number in a cell.
+     *
+     * @param cell   The cell.
+     * @param number The number to place.
+     */
+    public void place(int cell, int number) {
+        record(cellCount + cell, values[cell]);
+        values[cell] = number;
+    }
+
+    /**
+     * @return A point on the trail that can be rolled back to.
+     */
+    public int mark() {
+        return trailSize;
+    }
+
+    /**
+     * Undoes every change made since the mark was taken.
+     *
+     * @param mark A point on the trail from mark().
+     */
+    public void undo(int mark) {
+        while (trailSize > mark) {
+            int old = trail[--trailSize];
+            int slot = trail[--trailSize];
+            if (slot < cellCount) {
+                masks[slot] = old;
+            } else {
+                values[slot - cellCount] = old;
+            }
+        }
+    }
+
+    private void record(int slot, int old) {
+        if (trailSize + 2 > trail.length) {
+            trail = Arrays.copyOf(trail, trail.length * 2);
+        }
+        trail[trailSize++] = slot;
+        trail[trailSize++] = old;
+    }
+
+    /**
+     * @param mask A bitmask of options.
+     * @return How many options there are.
+     */
+    public static int count(int mask) {
+        return Integer.bitCount(mask);
+    }
+
+    /**
+     * @param mask A bitmask of options, not empty.
+     * @return The lowest number in the options.
+     */
+    public static int lowestNumber(int mask) {
+        return Integer.numberOfTrailingZeros(mask) + 1;
+    }
+
+    /**
+     * @param mask A bitmask of options, not empty.
+     * @return The highest number in the options.
+     */
+    public static int highestNumber(int mask) {
+        return 32 - Integer.numberOfLeadingZeros(mask);
+    }
+
+    /**
+     * Steps through the options of a mask, use as {@code for (int m = mask; m != 0; m = next(m))}.
+     *
+     * @param mask A bitmask of options, not empty.
+     * @return The mask without its lowest option.
+     */
+    public static int next(int mask) {
+        return mask & (mask - 1);
+    }
+
+    /**
+     * @param number A number from 1 to 31.
+     * @return The bit standing for the number.
+     */
+    public static int bit(int number) {
+        return 1 << (number - 1);
+    }
+}
@@ -0,0 +1,159 @@
+package app.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import app.puzzle.Puzzle;
+
+/**
+ * Finds solutions to a puzzle using every core.
+ * <p>
+ * The top levels of the search tree are split into separate parts, each guessing one option of the cell with
+ * the fewest options and searching on from a copy of the grid with a {@link Solver} of its own. The parts run on
+ * a work stealing {@link ForkJoinPool}, so a core that finishes an easy part takes over half of a hard one. All
+ * of the parts put their solutions in one place, and once the limit is reached the rest stop.
+ */
+public class ParallelSolver {
+    // parts to split the tree into for every thread, more parts balance better but cost a copy of the grid each.
+    private static final int PARTS_PER_THREAD = 16;
+
+    // only ever copied, so it can be reused for every search.
+    private final Solver root;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private long deadline = Long.MAX_VALUE;
+    private boolean timedOut;
+
+    /**
+     * @param puzzle The puzzle to solve.
+     * @throws IllegalArgumentException If the grid is too big to fit the options in a bitmask.
+     */
+    public ParallelSolver(Puzzle puzzle) {
+        root = new Solver(puzzle);
+    }
+
+    /**
+     * @param parallelism How many threads to use, the number of cores by default.
+     * @throws IllegalArgumentException If parallelism is less than 1.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Gives up searching once a point in time has passed.
+     *
+     * @param deadline The time to give up, as a value of System.nanoTime().
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * @return If the last search gave up because its deadline passed, in which case solutions may be missing.
+     */
+    public boolean hasTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Finds a solution to the puzzle.
+     *
+     * @return The number in every cell, row by row, or null if there is no solution.
+     */
+    public int[] solve() {
+        List<int[]> found = findSolutions(1);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Counts the solutions to the puzzle, stopping once the limit is reached.
+     * <p>
+     * Use a limit of 2 to check if a puzzle has exactly one solution.
+     *
+     * @param limit The most solutions to look for.
+     * @return How many solutions were found, at most limit.
+     */
+    public int countSolutions(int limit) {
+        return findSolutions(limit).size();
+    }
+
+    /**
+     * Finds solutions to the puzzle, stopping once the limit is reached.
+     *
+     * @param limit The most solutions to look for.
+     * @return The solutions found, each the number in every cell row by row, in no particular order.
+     */
+    public List<int[]> findSolutions(int limit) {
+        SharedSolutions shared = new SharedSolutions(limit);
+        AtomicBoolean anyTimedOut = new AtomicBoolean();
+        root.setDeadline(deadline);
+
+        if (!shared.isDone() && root.begin(shared)) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                // with one thread there is nothing to balance, so don't pay for copies.
+                int parts = parallelism > 1 ? parallelism * PARTS_PER_THREAD : 1;
+                pool.invoke(new Part(root, parts, shared, anyTimedOut));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        timedOut = anyTimedOut.get();
+        return shared.get();
+    }
+
+    /**
+     * One part of the search tree, searched by its own solver.
+     */
+    private static class Part extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Solver solver;
+        // how many parts this one should still be split into.
+        private final int parts;
+        private final SharedSolutions shared;
+        private final AtomicBoolean anyTimedOut;
+
+        Part(Solver solver, int parts, SharedSolutions shared, AtomicBoolean anyTimedOut) {
+            this.solver = solver;
+            this.parts = parts;
+            this.shared = shared;
+            this.anyTimedOut = anyTimedOut;
+        }
+
+        @Override
+        protected void compute() {
+            if (shared.isDone()) {
+                return;
+            }
+
+            int cell = solver.chooseCell();
+            int options = cell < 0 ? 0 : solver.getOptions(cell);
+            if (parts <= 1 || Integer.bitCount(options) < 2) {
+                solver.finish();
+                if (solver.hasTimedOut()) {
+                    anyTimedOut.set(true);
+                    shared.cancel();
+                }
+                return;
+            }
+
+            // one part for every option of the cell, leaving out the guesses that fail straight away.
+            List<Part> children = new ArrayList<Part>();
+            int childParts = Math.max(1, parts / Integer.bitCount(options));
+            for (int rest = options; rest != 0; rest = Domains.next(rest)) {
+                Solver child = new Solver(solver);
+                if (child.guess(cell, Domains.lowestNumber(rest))) {
+                    children.add(new Part(child, childParts, shared, anyTimedOut));
+                }
+            }
+            invokeAll(children);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package app.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The solutions every part of a {@link ParallelSolver} search has found so far.
+ * <p>
+ * Once the limit is reached, or the search is cancelled, every part sees it is done the next time it guesses
+ * and stops.
+ */
+final class SharedSolutions {
+    private final int limit;
+    private final List<int[]> solutions = new ArrayList<int[]>();
+    private volatile boolean done;
+
+    /**
+     * @param limit The most solutions to look for.
+     */
+    SharedSolutions(int limit) {
+        this.limit = limit;
+        done = limit <= 0;
+    }
+
+    /**
+     * @param solution The number in every cell, row by row.
+     * @return If enough solutions have been found to stop.
+     */
+    synchronized boolean add(int[] solution) {
+        if (!done) {
+            solutions.add(solution);
+            done = solutions.size() >= limit;
+        }
+        return done;
+    }
+
+    /**
+     * Stops every part of the search, for when one of them has run out of time.
+     */
+    void cancel() {
+        done = true;
+    }
+
+    /**
+     * @return If the search should stop.
+     */
+    boolean isDone() {
+        return done;
+    }
+
+    /**
+     * @return A copy of the solutions found.
+     */
+    synchronized List<int[]> get() {
+        return new ArrayList<int[]>(solutions);
+    }
+}
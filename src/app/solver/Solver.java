@@ -0,0 +1,848 @@
+package app.solver;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.ArrayList;
+import java.util.List;
+
+import app.puzzle.Operator;
+import app.puzzle.Puzzle;
+
+/**
+ * Finds solutions to a puzzle without touching any javaFX objects.
+ * <p>
+ * Every cell keeps the numbers it could still be as a bitmask in {@link Domains}, bit v - 1 standing for the
+ * number v.
+ * Placing a number removes it from the rest of the row and column and narrows the other cells in its cage
+ * to numbers that can still meet the cage target, any cell left with one option is placed straight away.
+ * Numbers left with only one cell in a row or column are placed too. When nothing more can be worked out the
+ * cell with the fewest options is guessed, weighed against how often its cage, row and column have failed so
+ * far, and a wrong guess is undone by rolling back the domains' trail.
+ * <p>
+ * Nothing is printed while searching. Every search counts the guesses it makes, the guesses it undoes and the
+ * propagation steps it takes, which can be read afterwards or logged at DEBUG level under this class's name.
+ */
+public class Solver {
+    private static final Logger LOGGER = System.getLogger(Solver.class.getName());
+
+    // cages with more combinations left than this are only narrowed using their bounds.
+    private static final int COMBINATION_LIMIT = 256;
+    // far above any target, even after dividing by the largest number.
+    private static final long PRODUCT_CEILING = 1L << 40;
+
+    private final int size;
+    private final int cellCount;
+    private final int allNumbers;
+    private final int[][] cageCells;
+    private final Operator[] operators;
+    private final int[] targets;
+    private final CageTable[] tables;
+    private final int[] cageOf;
+
+    // reused so that checking cages doesn't allocate.
+    private final int[] cageValues;
+    private final int[] freePositions;
+    private final int[] supported;
+    private final int[] placedCounts;
+    private final int[] usedCounts;
+    private final int[] pending;
+    private int top;
+    private final int[] cageQueue;
+    private final boolean[] cageQueued;
+    private int cageTop;
+    // rows are lines 0 to size - 1, columns are lines size to 2 * size - 1.
+    private final int[] lineQueue;
+    private final boolean[] lineQueued;
+    private int lineTop;
+    // how often each cage and line has failed, guesses favour cells whose constraints fail a lot.
+    private final int[] failures;
+
+    private Domains domains;
+    private List<int[]> solutions;
+    private int limit;
+    private long deadline = Long.MAX_VALUE;
+    private long nodeLimit = Long.MAX_VALUE;
+    private boolean timedOut;
+    // what the last search did, counted instead of printed.
+    private long nodes;
+    private long backtracks;
+    private long propagations;
+    // set when this solver is searching one part of the tree for a ParallelSolver.
+    private SharedSolutions shared;
+
+    /**
+     * Sets up the solver for a puzzle.
+     *
+     * @param puzzle The puzzle to solve.
+     * @throws IllegalArgumentException If the grid is too big to fit the options in a bitmask.
+     */
+    public Solver(Puzzle puzzle) {
+        size = puzzle.getSize();
+        if (size < 1 || size > 31) {
+            throw new IllegalArgumentException("Grid dimensions must be between 1 and 31: " + size);
+        }
+        cellCount = size * size;
+        allNumbers = (1 << size) - 1;
+
+        int cageCount = puzzle.getCageCount();
+        cageCells = new int[cageCount][];
+        operators = new Operator[cageCount];
+        targets = new int[cageCount];
+        tables = new CageTable[cageCount];
+        cageOf = new int[cellCount];
+
+        // one pass over the cells to size the cages, and one to fill them in.
+        int[] filled = new int[cageCount];
+        for (int cell = 0; cell < cellCount; cell++) {
+            cageOf[cell] = puzzle.getCage(cell);
+            if (cageOf[cell] >= 0) {
+                filled[cageOf[cell]]++;
+            }
+        }
+        int biggestCage = 1;
+        for (int cage = 0; cage < cageCount; cage++) {
+            cageCells[cage] = new int[filled[cage]];
+            filled[cage] = 0;
+            biggestCage = Math.max(biggestCage, cageCells[cage].length);
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (cageOf[cell] >= 0) {
+                cageCells[cageOf[cell]][filled[cageOf[cell]]++] = cell;
+            }
+        }
+
+        for (int cage = 0; cage < cageCount; cage++) {
+            operators[cage] = puzzle.getOperator(cage);
+            targets[cage] = puzzle.getTarget(cage);
+            tables[cage] = CageTable.get(operators[cage], cageCells[cage].length, targets[cage], size);
+        }
+
+        cageValues = new int[biggestCage];
+        freePositions = new int[biggestCage];
+        supported = new int[biggestCage];
+        placedCounts = new int[size + 1];
+        usedCounts = new int[size + 1];
+        // a cell is only queued when it drops to one option, so this can't overflow.
+        pending = new int[cellCount * 3];
+        cageQueue = new int[cageCount];
+        cageQueued = new boolean[cageCount];
+        lineQueue = new int[size * 2];
+        lineQueued = new boolean[size * 2];
+        failures = new int[cageCount + size * 2];
+    }
+
+    /**
+     * A copy for searching one part of the tree on another thread.
+     * <p>
+     * The puzzle is shared, since nothing changes it, but the options of every cell are copied and everything
+     * the search writes to is new.
+     *
+     * @param other The solver to copy, partway through a search.
+     */
+    Solver(Solver other) {
+        size = other.size;
+        cellCount = other.cellCount;
+        allNumbers = other.allNumbers;
+        cageCells = other.cageCells;
+        operators = other.operators;
+        targets = other.targets;
+        tables = other.tables;
+        cageOf = other.cageOf;
+
+        cageValues = new int[other.cageValues.length];
+        freePositions = new int[other.freePositions.length];
+        supported = new int[other.supported.length];
+        placedCounts = new int[size + 1];
+        usedCounts = new int[size + 1];
+        pending = new int[cellCount * 3];
+        cageQueue = new int[cageCells.length];
+        cageQueued = new boolean[cageCells.length];
+        lineQueue = new int[size * 2];
+        lineQueued = new boolean[size * 2];
+        failures = other.failures.clone();
+
+        domains = new Domains(other.domains);
+        solutions = new ArrayList<int[]>();
+        limit = other.limit;
+        deadline = other.deadline;
+        nodeLimit = other.nodeLimit;
+        shared = other.shared;
+    }
+
+    /**
+     * Gives up searching once a point in time has passed.
+     *
+     * @param deadline The time to give up, as a value of System.nanoTime().
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Gives up searching after a number of guesses, which unlike a deadline stops at the same point on every
+     * machine.
+     *
+     * @param nodeLimit The most guesses to make.
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * @return If the last search gave up because its deadline passed, it made too many guesses or its thread was
+     *         interrupted, in which case solutions may be missing.
+     */
+    public boolean hasTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * @return How many guesses the last search made.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return How many guesses the last search had to undo.
+     */
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * @return How many cells the last search placed, and cages, rows and columns it narrowed, while working
+     *         out what follows from its guesses.
+     */
+    public long getPropagations() {
+        return propagations;
+    }
+
+    /**
+     * Finds a solution to the puzzle.
+     *
+     * @return The number in every cell, row by row, or null if there is no solution.
+     */
+    public int[] solve() {
+        List<int[]> found = findSolutions(1);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Counts the solutions to the puzzle, stopping once the limit is reached.
+     * <p>
+     * Use a limit of 2 to check if a puzzle has exactly one solution.
+     *
+     * @param limit The most solutions to look for.
+     * @return How many solutions were found, at most limit.
+     */
+    public int countSolutions(int limit) {
+        return findSolutions(limit).size();
+    }
+
+    /**
+     * Finds solutions to the puzzle, stopping once the limit is reached.
+     *
+     * @param limit The most solutions to look for.
+     * @return The solutions found, each the number in every cell row by row.
+     */
+    public List<int[]> findSolutions(int limit) {
+        solutions = new ArrayList<int[]>();
+        this.limit = limit;
+        timedOut = false;
+        resetCounters();
+        domains = new Domains(cellCount, allNumbers);
+
+        if (limit > 0 && start()) {
+            search();
+        }
+        if (LOGGER.isLoggable(Level.DEBUG)) {
+            LOGGER.log(Level.DEBUG, "Found {0} solutions of {1}x{1} in {2} nodes, {3} backtracks and {4} "
+                    + "propagations{5}", solutions.size(), size, nodes, backtracks, propagations,
+                    timedOut ? ", gave up early" : "");
+        }
+        return solutions;
+    }
+
+    /**
+     * Gets ready to search for a ParallelSolver, working out everything possible before any guesses.
+     *
+     * @param shared Where every part of the search puts its solutions.
+     * @return False if the puzzle can't be solved.
+     */
+    boolean begin(SharedSolutions shared) {
+        this.shared = shared;
+        solutions = new ArrayList<int[]>();
+        limit = Integer.MAX_VALUE;
+        timedOut = false;
+        resetCounters();
+        domains = new Domains(cellCount, allNumbers);
+        return start();
+    }
+
+    private void resetCounters() {
+        nodes = 0;
+        backtracks = 0;
+        propagations = 0;
+    }
+
+    /**
+     * Makes a guess and works out everything that follows from it.
+     *
+     * @param cell   The cell to guess.
+     * @param number The number to guess for it.
+     * @return False if the guess was wrong.
+     */
+    boolean guess(int cell, int number) {
+        nodes++;
+        clearQueues();
+        domains.restrict(cell, Domains.bit(number));
+        pending[top++] = cell;
+        queueLines(cell);
+        return propagate();
+    }
+
+    /**
+     * Searches the rest of the tree from the guesses made so far.
+     */
+    void finish() {
+        search();
+    }
+
+    /**
+     * @return The cell with the fewest options left, or -1 if every cell is filled in.
+     */
+    int chooseCell() {
+        int best = -1;
+        long bestCount = 1;
+        long bestWeight = 0;
+        int lines = cageCells.length;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (domains.getValue(cell) == 0) {
+                long count = Domains.count(domains.get(cell));
+                long weight = 3 + failures[lines + cell / size] + failures[lines + size + cell % size]
+                        + (cageOf[cell] >= 0 ? failures[cageOf[cell]] : 0);
+                // fewest options for the failures around it, compared without dividing.
+                if (best == -1 || count * bestWeight < bestCount * weight) {
+                    best = cell;
+                    bestCount = count;
+                    bestWeight = weight;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param cell The cell.
+     * @return The options left for the cell as a bitmask.
+     */
+    int getOptions(int cell) {
+        return domains.get(cell);
+    }
+
+    /**
+     * Restricts single cages to their target and narrows every cage before any guesses are made.
+     *
+     * @return False if the puzzle can't be solved.
+     */
+    private boolean start() {
+        clearQueues();
+        for (int cage = 0; cage < cageCells.length; cage++) {
+            queueCage(cage);
+        }
+        for (int line = 0; line < size * 2; line++) {
+            queueLine(line);
+        }
+        return propagate();
+    }
+
+    /**
+     * Guesses the cell with the fewest options until every cell is filled in.
+     *
+     * @return If enough solutions have been found to stop.
+     */
+    private boolean search() {
+        // only look at the clock every so often, it isn't free. an interrupted thread gives up the same way.
+        if ((nodes & 1023) == 0
+                && (System.nanoTime() - deadline > 0 || Thread.currentThread().isInterrupted())) {
+            timedOut = true;
+            return true;
+        }
+        if (nodes > nodeLimit) {
+            timedOut = true;
+            return true;
+        }
+        // another part of the tree has found enough.
+        if (shared != null && shared.isDone()) {
+            return true;
+        }
+
+        int best = chooseCell();
+        if (best == -1) {
+            if (shared != null) {
+                return shared.add(domains.getValues());
+            }
+            solutions.add(domains.getValues());
+            return solutions.size() >= limit;
+        }
+
+        int mark = domains.mark();
+        for (int options = domains.get(best); options != 0; options = Domains.next(options)) {
+            nodes++;
+            clearQueues();
+            domains.restrict(best, Integer.lowestOneBit(options));
+            pending[top++] = best;
+            queueLines(best);
+            if (propagate() && search()) {
+                return true;
+            }
+            // put back everything this guess changed before trying the next one.
+            backtracks++;
+            domains.undo(mark);
+        }
+        return false;
+    }
+
+    /**
+     * Places every queued cell, narrows every queued cage and looks for hidden singles in every queued row and
+     * column, until nothing else can be worked out.
+     * <p>
+     * A cage, row or column is queued whenever one of its cells loses an option, so each is rechecked as soon as
+     * the cells in it change. Cells are handled first since they are cheapest, then cages, then lines.
+     *
+     * @return False if this led to a cell with no options, a cage that can't meet its target or a number with
+     *         nowhere left to go in a row or column.
+     */
+    private boolean propagate() {
+        while (top > 0 || cageTop > 0 || lineTop > 0) {
+            propagations++;
+            if (top == 0 && cageTop == 0) {
+                int line = lineQueue[--lineTop];
+                lineQueued[line] = false;
+                if (!reviseLine(line)) {
+                    failures[cageCells.length + line]++;
+                    return false;
+                }
+                continue;
+            }
+            if (top == 0) {
+                int cage = cageQueue[--cageTop];
+                cageQueued[cage] = false;
+                if (!reviseCage(cage)) {
+                    failures[cage]++;
+                    return false;
+                }
+                continue;
+            }
+
+            int current = pending[--top];
+            if (domains.getValue(current) != 0) {
+                // already placed when it was found a second time.
+                continue;
+            }
+            int bit = domains.get(current);
+            domains.place(current, Domains.lowestNumber(bit));
+            if (cageOf[current] >= 0) {
+                queueCage(cageOf[current]);
+            }
+
+            // remove the number from the rest of the row and column.
+            int x = current % size;
+            int y = current / size;
+            for (int k = 0; k < size; k++) {
+                int rowCell = y * size + k;
+                int columnCell = k * size + x;
+                if (rowCell != current && !narrow(rowCell, ~bit)) {
+                    return false;
+                }
+                if (columnCell != current && !narrow(columnCell, ~bit)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void queueCage(int cage) {
+        if (!cageQueued[cage]) {
+            cageQueued[cage] = true;
+            cageQueue[cageTop++] = cage;
+        }
+    }
+
+    private void queueLines(int cell) {
+        queueLine(cell / size);
+        queueLine(size + cell % size);
+    }
+
+    private void queueLine(int line) {
+        if (!lineQueued[line]) {
+            lineQueued[line] = true;
+            lineQueue[lineTop++] = line;
+        }
+    }
+
+    /**
+     * Empties the queues left over from a guess that didn't work.
+     */
+    private void clearQueues() {
+        top = 0;
+        while (cageTop > 0) {
+            cageQueued[cageQueue[--cageTop]] = false;
+        }
+        while (lineTop > 0) {
+            lineQueued[lineQueue[--lineTop]] = false;
+        }
+    }
+
+    /**
+     * Finds hidden singles in a row or column, numbers that are only left as an option in one of its cells,
+     * and restricts those cells to them.
+     *
+     * @param line The row, or size plus the column.
+     * @return False if a number has no cell left in the line, or one cell is the only place for two numbers.
+     */
+    private boolean reviseLine(int line) {
+        int first = line < size ? line * size : line - size;
+        int step = line < size ? 1 : size;
+
+        int seen = 0;
+        int multiple = 0;
+        for (int k = 0, cell = first; k < size; k++, cell += step) {
+            int mask = domains.get(cell);
+            multiple |= seen & mask;
+            seen |= mask;
+        }
+        if (seen != allNumbers) {
+            return false;
+        }
+
+        int hidden = seen & ~multiple;
+        for (int k = 0, cell = first; k < size && hidden != 0; k++, cell += step) {
+            int only = domains.get(cell) & hidden;
+            if (only != 0 && domains.getValue(cell) == 0) {
+                if (Domains.count(only) > 1) {
+                    return false;
+                }
+                if (!narrow(cell, only)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Keeps only some of the options of a cell that hasn't been placed, queueing it if one option is left.
+     *
+     * @param mask The options that are allowed to stay.
+     * @return False if the cell has no options left.
+     */
+    private boolean narrow(int cell, int mask) {
+        if (domains.getValue(cell) != 0 || !domains.restrict(cell, mask)) {
+            return true;
+        }
+        int domain = domains.get(cell);
+        if (domain == 0) {
+            return false;
+        }
+        if (cageOf[cell] >= 0) {
+            queueCage(cageOf[cell]);
+        }
+        queueLines(cell);
+        if (Domains.count(domain) == 1) {
+            pending[top++] = cell;
+        }
+        return true;
+    }
+
+    /**
+     * Narrows the cells of a cage that haven't been placed to numbers that can still meet the target.
+     * <p>
+     * The cage's combination table is checked against the numbers already placed. Sums and products are then
+     * bounded by the smallest and largest options left in the cage. Then if there aren't too many ways left to
+     * fill the cage, every way is tried and only the numbers that are part of a working combination are kept.
+     *
+     * @return False if the cage can no longer meet its target.
+     */
+    private boolean reviseCage(int cage) {
+        int[] cells = cageCells[cage];
+        Operator operator = operators[cage];
+
+        if (operator == Operator.NONE) {
+            int target = targets[cage];
+            if (cells.length != 1 || target < 1 || target > size) {
+                return false;
+            }
+            return narrow(cells[0], Domains.bit(target));
+        }
+
+        if (tables[cage] != null && !filterCombinations(cage)) {
+            return false;
+        }
+        if (operator == Operator.ADD && !boundSum(cells, targets[cage])) {
+            return false;
+        }
+        if (operator == Operator.MULTIPLY && !boundProduct(cells, targets[cage])) {
+            return false;
+        }
+
+        int freeCount = 0;
+        long combinations = 1;
+        for (int i = 0; i < cells.length; i++) {
+            int cell = cells[i];
+            if (domains.getValue(cell) == 0) {
+                freePositions[freeCount] = i;
+                supported[freeCount] = 0;
+                freeCount++;
+                combinations *= Domains.count(domains.get(cell));
+                if (combinations > COMBINATION_LIMIT) {
+                    return true;
+                }
+            } else {
+                cageValues[i] = domains.getValue(cell);
+            }
+        }
+
+        if (!fillCage(cage, 0, freeCount)) {
+            return false;
+        }
+        for (int i = 0; i < freeCount; i++) {
+            if (!narrow(cells[freePositions[i]], supported[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Keeps only the numbers that appear in a combination from the cage's table that still fits.
+     * <p>
+     * A combination fits if it contains every number already placed in the cage, and the numbers left over are
+     * all options of at least one free cell. The numbers left over from every fitting combination are the only
+     * ones the free cells can still be.
+     *
+     * @return False if no combination fits.
+     */
+    private boolean filterCombinations(int cage) {
+        int[] cells = cageCells[cage];
+        CageTable table = tables[cage];
+
+        int placed = 0;
+        int freeOptions = 0;
+        for (int cell : cells) {
+            if (domains.getValue(cell) != 0) {
+                placedCounts[domains.getValue(cell)]++;
+                placed++;
+            } else {
+                freeOptions |= domains.get(cell);
+            }
+        }
+
+        if (placed == 0) {
+            // nothing to match against yet, so every cell just has to be part of some combination.
+            for (int cell : cells) {
+                if (!narrow(cell, table.getUnion())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int allowed = 0;
+        boolean anyFits = false;
+        for (int i = 0; i < table.size(); i++) {
+            int[] combination = table.getCombination(i);
+            int consumed = 0;
+            int leftOver = 0;
+            boolean fits = true;
+            for (int number : combination) {
+                if (usedCounts[number] < placedCounts[number]) {
+                    usedCounts[number]++;
+                    consumed++;
+                } else if ((freeOptions & Domains.bit(number)) != 0) {
+                    leftOver |= Domains.bit(number);
+                } else {
+                    fits = false;
+                }
+            }
+            for (int number : combination) {
+                usedCounts[number] = 0;
+            }
+            if (fits && consumed == placed) {
+                allowed |= leftOver;
+                anyFits = true;
+            }
+        }
+
+        for (int cell : cells) {
+            placedCounts[domains.getValue(cell)] = 0;
+        }
+
+        if (!anyFits) {
+            return false;
+        }
+        for (int cell : cells) {
+            if (!narrow(cell, allowed)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tries every way of filling the free cells of a cage, marking the numbers used by the ones that work.
+     *
+     * @param index     The free cell to fill next.
+     * @param freeCount How many cells of the cage are free.
+     * @return If at least one way worked.
+     */
+    private boolean fillCage(int cage, int index, int freeCount) {
+        int[] cells = cageCells[cage];
+        if (index == freeCount) {
+            if (!operators[cage].matches(cageValues, cells.length, targets[cage])) {
+                return false;
+            }
+            for (int i = 0; i < freeCount; i++) {
+                supported[i] |= Domains.bit(cageValues[freePositions[i]]);
+            }
+            return true;
+        }
+
+        int position = freePositions[index];
+        int cell = cells[position];
+        int options = domains.get(cell);
+        // cells of the cage in the same row or column can't share a number.
+        for (int i = 0; i < cells.length; i++) {
+            if (i != position && sharesLine(cell, cells[i]) && isFilled(i, index, freeCount)) {
+                options &= ~Domains.bit(cageValues[i]);
+            }
+        }
+
+        boolean found = false;
+        for (; options != 0; options = Domains.next(options)) {
+            cageValues[position] = Domains.lowestNumber(options);
+            if (fillCage(cage, index + 1, freeCount)) {
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return If the cage position already has a number while filling the free cell at index.
+     */
+    private boolean isFilled(int position, int index, int freeCount) {
+        for (int i = index; i < freeCount; i++) {
+            if (freePositions[i] == position) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean sharesLine(int cell, int other) {
+        return cell / size == other / size || cell % size == other % size;
+    }
+
+    /**
+     * Removes numbers that would make a sum cage too big or too small whatever the other cells are.
+     *
+     * @return False if the cage can no longer meet its target.
+     */
+    private boolean boundSum(int[] cells, int target) {
+        int placed = 0;
+        int lowest = 0;
+        int highest = 0;
+        for (int cell : cells) {
+            if (domains.getValue(cell) != 0) {
+                placed += domains.getValue(cell);
+            } else {
+                lowest += Domains.lowestNumber(domains.get(cell));
+                highest += Domains.highestNumber(domains.get(cell));
+            }
+        }
+        if (placed + lowest > target || placed + highest < target) {
+            return false;
+        }
+
+        for (int cell : cells) {
+            if (domains.getValue(cell) == 0) {
+                int otherLowest = lowest - Domains.lowestNumber(domains.get(cell));
+                int otherHighest = highest - Domains.highestNumber(domains.get(cell));
+                // the number v has to satisfy target - otherHighest <= placed + v <= target - otherLowest.
+                int mask = range(target - placed - otherHighest, target - placed - otherLowest);
+                if (!narrow(cell, mask)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes numbers that don't divide what is left of a product cage's target, or would make it too big or
+     * too small whatever the other cells are.
+     *
+     * @return False if the cage can no longer meet its target.
+     */
+    private boolean boundProduct(int[] cells, int target) {
+        long placed = 1;
+        long lowest = 1;
+        long highest = 1;
+        for (int cell : cells) {
+            if (domains.getValue(cell) != 0) {
+                placed *= domains.getValue(cell);
+            } else {
+                lowest = multiply(lowest, Domains.lowestNumber(domains.get(cell)));
+                highest = multiply(highest, Domains.highestNumber(domains.get(cell)));
+            }
+        }
+        if (target % placed != 0) {
+            return false;
+        }
+        long remaining = target / placed;
+        if (lowest > remaining || highest < remaining) {
+            return false;
+        }
+
+        for (int cell : cells) {
+            if (domains.getValue(cell) == 0) {
+                long otherLowest = lowest / Domains.lowestNumber(domains.get(cell));
+                long otherHighest = highest / Domains.highestNumber(domains.get(cell));
+                int mask = 0;
+                for (int options = domains.get(cell); options != 0; options = Domains.next(options)) {
+                    int number = Domains.lowestNumber(options);
+                    if (remaining % number == 0 && number * otherLowest <= remaining
+                            && number * otherHighest >= remaining) {
+                        mask |= Domains.bit(number);
+                    }
+                }
+                if (!narrow(cell, mask)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Multiplies, stopping at a value far above any target so that big cages can't overflow.
+     */
+    private static long multiply(long product, int number) {
+        return Math.min(product * number, PRODUCT_CEILING);
+    }
+
+    /**
+     * @return A bitmask of the numbers from low to high, clipped to the grid.
+     */
+    private int range(int low, int high) {
+        low = Math.max(low, 1);
+        high = Math.min(high, size);
+        if (low > high) {
+            return 0;
+        }
+        return (allNumbers >>> (size - high)) & ~((1 << (low - 1)) - 1);
+    }
+}